@@ -30,10 +30,22 @@ if [[ -n "${AUTO_DEPLOYMENT_DIR:-}" ]]; then
   JAVA_OPTS="-Dlauncher.auto-deployment-directory=$AUTO_DEPLOYMENT_DIR ${JAVA_OPTS:-}"
 fi
 
+if [[ -n "${AUTO_DEPLOYMENT_WATCH:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.auto-deployment-watch=$AUTO_DEPLOYMENT_WATCH ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${AUTO_DEPLOYMENT_DEBOUNCE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.auto-deployment-debounce=$AUTO_DEPLOYMENT_DEBOUNCE ${JAVA_OPTS:-}"
+fi
+
 if [[ -n "${CACHE_DIR:-}" ]]; then
   JAVA_OPTS="-Dlauncher.cache-directory=$CACHE_DIR ${JAVA_OPTS:-}"
 fi
 
+if [[ -n "${STATE_DIR:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.state-directory=$STATE_DIR ${JAVA_OPTS:-}"
+fi
+
 if [[ -n "${PID_FILE:-}" ]]; then
   JAVA_OPTS="-Dlauncher.pid-file=$PID_FILE ${JAVA_OPTS:-}"
 fi
@@ -50,6 +62,10 @@ if [[ -n "${BUNDLE_ARTIFACTS:-}" ]]; then
   JAVA_OPTS="-Dlauncher.bundle-artifacts=$BUNDLE_ARTIFACTS ${JAVA_OPTS:-}"
 fi
 
+if [[ -n "${BUNDLE_RESOLUTION:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.bundle-resolution=$BUNDLE_RESOLUTION ${JAVA_OPTS:-}"
+fi
+
 if [[ -n "${REMOTE_REPOSITORIES:-}" ]]; then
   JAVA_OPTS="-Dlauncher.remote-repositories=$REMOTE_REPOSITORIES ${JAVA_OPTS:-}"
 fi
@@ -58,10 +74,98 @@ if [[ -n "${LOCAL_REPOSITORY:-}" ]]; then
   JAVA_OPTS="-Dlauncher.local-repository=$LOCAL_REPOSITORY ${JAVA_OPTS:-}"
 fi
 
+if [[ -n "${RESOLVER_THREADS:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.resolver-threads=$RESOLVER_THREADS ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${ARTIFACT_STORE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.artifact-store=$ARTIFACT_STORE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${HTTP_TRANSPORT:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.http-transport=$HTTP_TRANSPORT ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${REPOSITORY_SELECTION:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.repository-selection=$REPOSITORY_SELECTION ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOCK_FILE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.lock-file=$LOCK_FILE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOCK_MODE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.lock-mode=$LOCK_MODE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${INSTALL_MODE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.install-mode=$INSTALL_MODE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${WARM_RESTART:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.warm-restart=$WARM_RESTART ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${PARALLEL_START:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.parallel-start=$PARALLEL_START ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LIFECYCLE_THREADS:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.lifecycle-threads=$LIFECYCLE_THREADS ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${PARALLEL_STOP:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.parallel-stop=$PARALLEL_STOP ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${BUNDLE_STOP_TIMEOUT:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.bundle-stop-timeout=$BUNDLE_STOP_TIMEOUT ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${SHUTDOWN_TIMEOUT:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.shutdown-timeout=$SHUTDOWN_TIMEOUT ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${SERVICE_TRACKING:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.service-tracking=$SERVICE_TRACKING ${JAVA_OPTS:-}"
+fi
+
 if [[ -n "${PROVIDE_LOGGING_SERVICE:-}" ]]; then
   JAVA_OPTS="-Dlauncher.provide-service.logging=$PROVIDE_LOGGING_SERVICE ${JAVA_OPTS:-}"
 fi
 
+if [[ -n "${LOGGING_SERVICE_ASYNC:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.logging-service.async=$LOGGING_SERVICE_ASYNC ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOGGING_SERVICE_BUFFER_SIZE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.logging-service.buffer-size=$LOGGING_SERVICE_BUFFER_SIZE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOGGING_SERVICE_BATCH_SIZE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.logging-service.batch-size=$LOGGING_SERVICE_BATCH_SIZE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOGGING_SERVICE_WAIT_STRATEGY:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.logging-service.wait-strategy=$LOGGING_SERVICE_WAIT_STRATEGY ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${LOGGING_SERVICE_DROP_POLICY:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.logging-service.drop-policy=$LOGGING_SERVICE_DROP_POLICY ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${BOOT_PROFILE_FILE:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.boot-profile-file=$BOOT_PROFILE_FILE ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${BOOT_PROFILE_FORMAT:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.boot-profile-format=$BOOT_PROFILE_FORMAT ${JAVA_OPTS:-}"
+fi
+
+if [[ -n "${METRICS_JMX:-}" ]]; then
+  JAVA_OPTS="-Dlauncher.metrics.jmx=$METRICS_JMX ${JAVA_OPTS:-}"
+fi
+
 export JAVA_OPTS
 
 exec "$@"
@@ -0,0 +1,51 @@
+package systems.opalia.launcher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackageIndexBenchmark {
+
+    private final List<String> packageNames = List.of(
+            "org.apache.logging.log4j.*",
+            "org.osgi.service.log",
+            "org.slf4j.*");
+
+    private final ClassLoader classLoader = PackageIndexBenchmark.class.getClassLoader();
+    private final StringBuilder buffer = new StringBuilder();
+    private PackageIndex index;
+
+    @Setup
+    public void setup() {
+
+        index = PackageIndex.build(classLoader, packageNames);
+    }
+
+    @Benchmark
+    public List<String> build_and_transformExports() {
+
+        return PackageIndex.build(classLoader, packageNames).transformExports(packageNames);
+    }
+
+    @Benchmark
+    public List<String> transformExports() {
+
+        return index.transformExports(packageNames);
+    }
+
+    @Benchmark
+    public StringBuilder extractSemver() {
+
+        buffer.setLength(0);
+        PackageIndex.extractSemver(buffer, "2.017.01-SNAPSHOT");
+
+        return buffer;
+    }
+}
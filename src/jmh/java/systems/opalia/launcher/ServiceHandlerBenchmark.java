@@ -0,0 +1,74 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.felix.framework.FrameworkFactory;
+import org.openjdk.jmh.annotations.*;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceHandlerBenchmark {
+
+    private Framework framework;
+    private ServiceHandler serviceHandler;
+    private ServiceHandler.ServiceManager serviceManager;
+    private ServiceHandler trackingServiceHandler;
+    private ServiceHandler.ServiceManager trackingServiceManager;
+
+    @Setup(Level.Trial)
+    public void setup()
+            throws Exception {
+
+        framework = new FrameworkFactory().newFramework(Map.of(
+                Constants.FRAMEWORK_STORAGE, Files.createTempDirectory("felix-benchmark").toString(),
+                Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT));
+
+        framework.init();
+        framework.start();
+
+        serviceHandler = new ServiceHandler(framework.getBundleContext());
+        serviceManager = serviceHandler.getServiceManager();
+        serviceManager.registerService(Runnable.class, () -> {
+        });
+
+        trackingServiceHandler = new ServiceHandler(framework.getBundleContext(), true);
+        trackingServiceManager = trackingServiceHandler.getServiceManager();
+    }
+
+    @TearDown(Level.Iteration)
+    public void ungetServices() {
+
+        // every lookup holds a service reference until it is released
+        serviceHandler.ungetServices();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception {
+
+        trackingServiceHandler.ungetServices();
+        serviceHandler.unregisterServices();
+        framework.stop();
+        framework.waitForStop(10_000);
+    }
+
+    @Benchmark
+    public Runnable getService() {
+
+        return serviceManager.getService(Runnable.class);
+    }
+
+    @Benchmark
+    public Runnable getTrackedService() {
+
+        return trackingServiceManager.getService(Runnable.class);
+    }
+}
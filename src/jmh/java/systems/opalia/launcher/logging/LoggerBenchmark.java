@@ -0,0 +1,73 @@
+package systems.opalia.launcher.logging;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.osgi.service.log.FormatterLogger;
+import org.osgi.service.log.Logger;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmark.xml")
+public class LoggerBenchmark {
+
+    // the root logger is set to info and writes to a null appender, so debug measures the disabled path
+    // and info measures formatting and event creation without any I/O
+
+    private final LoggerFactoryImpl factory = new LoggerFactoryImpl();
+    private final Logger logger = factory.getLogger(LoggerBenchmark.class);
+    private final FormatterLogger formatterLogger = factory.getLogger(LoggerBenchmark.class, FormatterLogger.class);
+    private final String name = "org.example.bundle";
+    private final Object[] arguments = new Object[]{name, 42, 1337L};
+
+    @Benchmark
+    public void disabled_argument() {
+
+        logger.debug("Bundle {} started", name);
+    }
+
+    @Benchmark
+    public void disabled_array() {
+
+        logger.debug("Bundle {} started in {} ms ({} bytes)", arguments);
+    }
+
+    @Benchmark
+    public void enabled_plain() {
+
+        logger.info("Bundle started");
+    }
+
+    @Benchmark
+    public void enabled_argument() {
+
+        logger.info("Bundle {} started", name);
+    }
+
+    @Benchmark
+    public void enabled_array() {
+
+        logger.info("Bundle {} started in {} ms ({} bytes)", arguments);
+    }
+
+    @Benchmark
+    public void enabled_printf_array() {
+
+        formatterLogger.info("Bundle %s started in %d ms (%d bytes)", arguments);
+    }
+
+    @Benchmark
+    public Logger getLogger_by_name() {
+
+        return factory.getLogger(name);
+    }
+
+    @Benchmark
+    public FormatterLogger getLogger_by_class() {
+
+        return factory.getLogger(LoggerBenchmark.class, FormatterLogger.class);
+    }
+}
@@ -0,0 +1,52 @@
+package systems.opalia.launcher.logging.formatter;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+
+    // run with -prof gc and compare gc.alloc.rate.norm, i.e. the bytes allocated per call
+
+    private final DefaultFormatter defaultFormatter = new DefaultFormatter();
+    private final PrintfFormatter printfFormatter = new PrintfFormatter();
+    private final StringBuilder buffer = new StringBuilder(256);
+    private final Object[] arguments = new Object[]{"org.example.bundle", 42, 1337L};
+
+    @Benchmark
+    public void default_arrayFormat(Blackhole blackhole) {
+
+        blackhole.consume(defaultFormatter.arrayFormat("Bundle {} started in {} ms ({} bytes)", arguments)
+                .getMessage());
+    }
+
+    @Benchmark
+    public void default_formatTo(Blackhole blackhole) {
+
+        buffer.setLength(0);
+        defaultFormatter.formatTo(buffer, "Bundle {} started in {} ms ({} bytes)", arguments, arguments.length);
+        blackhole.consume(buffer);
+    }
+
+    @Benchmark
+    public void printf_arrayFormat(Blackhole blackhole) {
+
+        blackhole.consume(printfFormatter.arrayFormat("Bundle %s started in %d ms (%d bytes)", arguments)
+                .getMessage());
+    }
+
+    @Benchmark
+    public void printf_formatTo(Blackhole blackhole) {
+
+        buffer.setLength(0);
+        printfFormatter.formatTo(buffer, "Bundle %s started in %d ms (%d bytes)", arguments, arguments.length);
+        blackhole.consume(buffer);
+    }
+}
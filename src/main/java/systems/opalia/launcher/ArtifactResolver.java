@@ -1,18 +1,39 @@
 package systems.opalia.launcher;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositoryEvent;
 import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
 import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.*;
@@ -21,67 +42,327 @@ import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
 import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.eclipse.aether.util.graph.visitor.FilteringDependencyVisitor;
+import org.eclipse.aether.util.graph.visitor.PostorderNodeListGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import systems.opalia.launcher.exception.UncheckedResolutionException;
+import systems.opalia.launcher.metrics.ResolverMetrics;
 
 
-public final class ArtifactResolver {
+public final class ArtifactResolver
+        implements AutoCloseable {
 
+    private static final int DEFAULT_THREADS = 8;
+    private static final int CACHE_SIZE = 4096;
+    private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+
+    private final Logger logger = LoggerFactory.getLogger(ArtifactResolver.class);
     private final List<RemoteRepository> remoteRepositories;
     private final LocalRepository localRepository;
     private final RepositorySystem repositorySystem;
+    private final int threads;
+    private final ArtifactStore artifactStore;
+    private final TransporterFactory httpTransporterFactory;
+    private final RepositorySelection repositorySelection;
+    private final RepositorySelector repositorySelector = new RepositorySelector();
+    private final ExecutorService hedgeExecutor;
+    // snapshots and version ranges may resolve differently next time
+    private final SingleFlightCache<String, Artifact> cache = new SingleFlightCache<>(CACHE_SIZE, CACHE_TTL,
+            (key, artifact) -> !artifact.isSnapshot() && key.endsWith(":" + artifact.getVersion()));
+    private final ResolverMetrics metrics =
+            new ResolverMetrics(cache::getHits, cache::getMisses, cache::getSharedRequests);
+    private final RepositorySystemSession session;
 
     public ArtifactResolver(List<RemoteRepository> remoteRepositories, LocalRepository localRepository) {
 
-        this.remoteRepositories = new ArrayList<>(remoteRepositories);
-        this.localRepository = localRepository;
-        this.repositorySystem = newRepositorySystem();
+        this(new Builder(remoteRepositories, localRepository));
     }
 
     public ArtifactResolver(LinkedHashMap<String, String> remoteRepositories, String localRepository) {
 
-        this(remoteRepositories.entrySet().stream()
-                        .map(x -> new RemoteRepository.Builder(x.getKey(), "default", x.getValue()).build())
-                        .collect(Collectors.toList()),
-                new LocalRepository(localRepository));
+        this(new Builder(remoteRepositories, localRepository));
+    }
+
+    private ArtifactResolver(Builder builder) {
+
+        if (builder.threads < 1)
+            throw new IllegalArgumentException("Expect at least one resolver thread");
+
+        this.remoteRepositories = new ArrayList<>(builder.remoteRepositories);
+        this.localRepository = builder.localRepository;
+        this.httpTransporterFactory = builder.httpTransporterFactory;
+        this.repositorySelection = builder.repositorySelection;
+        this.hedgeExecutor = repositorySelection == RepositorySelection.HEDGED ?
+                Executors.newCachedThreadPool(new NamedThreadFactory("artifact-hedge")) : null;
+        this.repositorySystem = newRepositorySystem();
+        this.threads = builder.threads;
+        this.artifactStore = builder.artifactStore == null ? null : new ArtifactStore(builder.artifactStore);
+        this.session = newRepositorySystemSession();
+    }
+
+    @Override
+    public void close() {
+
+        // losing hedges still finish their download and clean up the staging repository
+        if (hedgeExecutor != null)
+            hedgeExecutor.shutdown();
+    }
+
+    public ResolverMetrics getMetrics() {
+
+        return metrics;
     }
 
     public Artifact resolve(DefaultArtifact artifact) {
 
-        final var session = newRepositorySystemSession();
-        final var artifactRequest = new ArtifactRequest();
+        return record(() -> cache.get(artifact.toString(), x -> resolveArtifact(artifact)), x -> 1);
+    }
 
-        artifactRequest.setArtifact(artifact);
-        artifactRequest.setRepositories(remoteRepositories);
+    public List<Artifact> resolve(List<DefaultArtifact> artifacts) {
+
+        if (artifacts.isEmpty())
+            return Collections.emptyList();
+
+        return record(() -> resolveCached(artifacts), List::size);
+    }
+
+    public List<Artifact> resolveTransitive(DefaultArtifact artifact, String scope) {
+
+        return resolveTransitive(artifact, scope, Collections.emptyList());
+    }
+
+    public List<Artifact> resolveTransitive(DefaultArtifact artifact, String scope, List<String> scopeFilter) {
+
+        return record(() -> resolveDependencies(artifact, scope, scopeFilter), List::size);
+    }
+
+    public List<Artifact> resolveTransitive(List<DefaultArtifact> artifacts, String scope, List<String> scopeFilter) {
+
+        if (artifacts.isEmpty())
+            return Collections.emptyList();
+
+        return record(() -> resolveGraph(artifacts, scope, scopeFilter), List::size);
+    }
+
+    private <T> T record(Supplier<T> resolution, ToIntFunction<T> artifactCount) {
+
+        final var begin = System.nanoTime();
 
         try {
 
-            final var result = repositorySystem.resolveArtifact(session, artifactRequest);
+            final var result = resolution.get();
 
-            if (result.isMissing())
-                throw new UncheckedResolutionException(new Exception("Cannot resolve artifact " + artifact));
+            metrics.recordResolution(System.nanoTime() - begin, artifactCount.applyAsInt(result), false);
 
-            return result.getArtifact();
+            return result;
 
-        } catch (ArtifactResolutionException e) {
+        } catch (RuntimeException e) {
+
+            metrics.recordResolution(System.nanoTime() - begin, 0, true);
+            throw e;
+        }
+    }
+
+    private List<Artifact> resolveCached(List<DefaultArtifact> artifacts) {
+
+        final var requested = new HashMap<String, DefaultArtifact>();
+
+        for (final var artifact : artifacts)
+            requested.put(artifact.toString(), artifact);
+
+        // concurrent callers share the resolution of common coordinates
+        final var results = cache.getAll(
+                artifacts.stream().map(DefaultArtifact::toString).collect(Collectors.toList()),
+                keys -> resolveArtifacts(keys.stream().map(requested::get).collect(Collectors.toList())));
+
+        return artifacts.stream().map(x -> results.get(x.toString())).collect(Collectors.toList());
+    }
+
+    private Artifact resolveArtifact(DefaultArtifact artifact) {
+
+        final var stored = lookup(artifact);
+
+        if (stored.isPresent())
+            return stored.get();
+
+        final var resolved = resolveWithAether(artifact);
+
+        store(Collections.singletonList(artifact), Collections.singletonList(resolved));
+
+        return resolved;
+    }
+
+    private List<Artifact> resolveArtifacts(List<DefaultArtifact> artifacts) {
+
+        final var results = new ArrayList<Artifact>(artifacts.size());
+        final var missing = new ArrayList<DefaultArtifact>();
+
+        for (final var artifact : artifacts) {
+
+            final var stored = lookup(artifact);
+
+            results.add(stored.orElse(null));
+
+            if (stored.isEmpty())
+                missing.add(artifact);
+        }
+
+        if (artifactStore != null)
+            logger.debug("Take {} of {} artifacts from the artifact store",
+                    artifacts.size() - missing.size(), artifacts.size());
+
+        if (missing.isEmpty())
+            return results;
+
+        final var resolved = resolveWithAether(missing);
+        final var iterator = resolved.iterator();
+        final var failures = new ArrayList<UncheckedResolutionException>(artifacts.size());
+        final var storable = new ArrayList<DefaultArtifact>();
+        final var stored = new ArrayList<Artifact>();
+
+        // the gaps are filled in request order; an unresolved artifact fails only its own key
+        for (var i = 0; i < results.size(); i++) {
+
+            failures.add(null);
+
+            if (results.get(i) != null)
+                continue;
+
+            final var result = iterator.next();
+
+            if (!result.isResolved()) {
+
+                failures.set(i, new UncheckedResolutionException(
+                        new ArtifactResolutionException(Collections.singletonList(result))));
+                continue;
+            }
+
+            results.set(i, result.getArtifact());
+            storable.add(artifacts.get(i));
+            stored.add(result.getArtifact());
+        }
+
+        store(storable, stored);
+
+        if (stored.size() < resolved.size())
+            throw new SingleFlightCache.PartialLoadException(newResolutionException(resolved), results, failures);
 
+        return results;
+    }
+
+    private Optional<Artifact> lookup(DefaultArtifact artifact) {
+
+        if (artifactStore == null)
+            return Optional.empty();
+
+        return artifactStore.get(artifact.toString()).map(x -> artifact.setFile(x.toFile()));
+    }
+
+    private void store(List<DefaultArtifact> requested, List<Artifact> resolved) {
+
+        if (artifactStore == null)
+            return;
+
+        final var files = new LinkedHashMap<String, Path>();
+
+        // snapshots and version ranges may resolve differently next time
+        for (var i = 0; i < requested.size(); i++)
+            if (!resolved.get(i).isSnapshot() && requested.get(i).getVersion().equals(resolved.get(i).getVersion()))
+                files.put(requested.get(i).toString(), resolved.get(i).getFile().toPath());
+
+        artifactStore.put(files);
+    }
+
+    private Artifact resolveWithAether(DefaultArtifact artifact) {
+
+        final var result = resolvePartition(session, Collections.singletonList(artifact)).get(0);
+
+        if (!result.isResolved())
+            throw new UncheckedResolutionException(new ArtifactResolutionException(Collections.singletonList(result)));
+
+        return result.getArtifact();
+    }
+
+    private List<ArtifactResult> resolveWithAether(List<DefaultArtifact> artifacts) {
+
+        // contiguous partitions keep the results in the same order as the requests
+        final var partitionCount = Math.min(threads, artifacts.size());
+        final var partitionSize = (artifacts.size() + partitionCount - 1) / partitionCount;
+        final var executor = Executors.newFixedThreadPool(partitionCount, new NamedThreadFactory("artifact-resolver"));
+        final var futures = new ArrayList<Future<List<ArtifactResult>>>();
+        final var results = new ArrayList<ArtifactResult>();
+
+        try {
+
+            for (var i = 0; i < artifacts.size(); i += partitionSize) {
+
+                final var partition = artifacts.subList(i, Math.min(i + partitionSize, artifacts.size()));
+
+                futures.add(executor.submit(() -> resolvePartition(session, partition)));
+            }
+
+            for (final var future : futures)
+                results.addAll(future.get());
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
             throw new UncheckedResolutionException(e);
+
+        } catch (ExecutionException e) {
+
+            throw unwrap(e.getCause());
+
+        } finally {
+
+            executor.shutdownNow();
         }
+
+        return results;
     }
 
-    public List<Artifact> resolveTransitive(DefaultArtifact artifact, String scope) {
+    private static UncheckedResolutionException newResolutionException(List<ArtifactResult> results) {
 
-        return resolveTransitive(artifact, scope, Collections.emptyList());
+        final var failures = results.stream()
+                .filter(x -> !x.isResolved())
+                .collect(Collectors.toList());
+
+        final var report = new StringBuilder();
+
+        report.append("Cannot resolve ");
+        report.append(failures.size());
+        report.append(" of ");
+        report.append(results.size());
+        report.append(" artifacts");
+
+        for (final var failure : failures) {
+
+            report.append(System.lineSeparator());
+            report.append(" - ");
+            report.append(failure.getRequest().getArtifact());
+
+            failure.getExceptions().stream()
+                    .findFirst()
+                    .ifPresent(x -> report.append(": ").append(x.getMessage()));
+        }
+
+        final var exception = new Exception(report.toString());
+
+        for (final var failure : failures)
+            failure.getExceptions().forEach(exception::addSuppressed);
+
+        return new UncheckedResolutionException(exception);
     }
 
-    public List<Artifact> resolveTransitive(DefaultArtifact artifact, String scope, List<String> scopeFilter) {
+    private List<Artifact> resolveDependencies(DefaultArtifact artifact, String scope, List<String> scopeFilter) {
 
         // scope constants: org.eclipse.aether.util.artifact.JavaScopes
 
-        final var session = newRepositorySystemSession();
         final var collectRequest = new CollectRequest();
 
         collectRequest.setRoot(new Dependency(artifact, scope));
-        collectRequest.setRepositories(remoteRepositories);
+        collectRequest.setRepositories(getRepositories());
 
         final var dependencyRequest =
                 new DependencyRequest(collectRequest, DependencyFilterUtils.classpathFilter(scopeFilter));
@@ -102,26 +383,390 @@ public final class ArtifactResolver {
         }
     }
 
+    private List<Artifact> resolveGraph(List<DefaultArtifact> artifacts, String scope, List<String> scopeFilter) {
+
+        final var collectRequest = new CollectRequest();
+
+        // all roots share one graph, so common dependencies are read and mediated only once
+        collectRequest.setDependencies(artifacts.stream()
+                .map(x -> new Dependency(x, scope))
+                .collect(Collectors.toList()));
+        collectRequest.setRepositories(getRepositories());
+
+        final var nodes = new PostorderNodeListGenerator();
+
+        try {
+
+            repositorySystem.collectDependencies(session, collectRequest).getRoot()
+                    .accept(new FilteringDependencyVisitor(nodes, DependencyFilterUtils.classpathFilter(scopeFilter)));
+
+        } catch (DependencyCollectionException e) {
+
+            throw new UncheckedResolutionException(e);
+        }
+
+        final var collected = new LinkedHashMap<String, DefaultArtifact>();
+
+        // dependencies come before their dependents; the root node without dependency joins the roots
+        for (final var node : nodes.getNodes()) {
+
+            if (node.getDependency() == null)
+                continue;
+
+            final var x = node.getArtifact();
+
+            collected.putIfAbsent(x.getGroupId() + ":" + x.getArtifactId() + ":" + x.getExtension() + ":" +
+                            x.getClassifier(),
+                    new DefaultArtifact(x.getGroupId(), x.getArtifactId(), x.getClassifier(), x.getExtension(),
+                            x.getVersion()));
+        }
+
+        logger.debug("Collected {} artifacts from {} roots", collected.size(), artifacts.size());
+
+        return resolveCached(new ArrayList<>(collected.values()));
+    }
+
+    private List<RemoteRepository> getRepositories() {
+
+        if (repositorySelection == RepositorySelection.CONFIGURED)
+            return remoteRepositories;
+
+        return repositorySelector.order(remoteRepositories);
+    }
+
+    private List<ArtifactResult> resolvePartition(RepositorySystemSession session, List<DefaultArtifact> artifacts) {
+
+        final var repositories = getRepositories();
+
+        if (repositorySelection != RepositorySelection.HEDGED || repositories.size() < 2)
+            return resolvePartition(session, artifacts, repositories);
+
+        try {
+
+            return resolveHedged(session, artifacts, repositories);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new UncheckedResolutionException(e);
+
+        } catch (ExecutionException e) {
+
+            throw unwrap(e.getCause());
+
+        } catch (IOException e) {
+
+            throw new UncheckedResolutionException(e);
+        }
+    }
+
+    private List<ArtifactResult> resolveHedged(RepositorySystemSession session,
+                                               List<DefaultArtifact> artifacts,
+                                               List<RemoteRepository> repositories)
+            throws InterruptedException, ExecutionException, IOException {
+
+        final var primary = CompletableFuture.supplyAsync(
+                () -> resolvePartition(session, artifacts, repositories), hedgeExecutor);
+
+        // the connector downloads a batch in rounds of its thread count, so the delay grows with the rounds
+        final var rounds = (artifacts.size() + threads - 1) / threads;
+
+        try {
+
+            return primary.get(repositorySelector.getHedgeDelayNanos(repositories.get(0)) * rounds,
+                    TimeUnit.NANOSECONDS);
+
+        } catch (TimeoutException e) {
+
+            logger.debug("Hedge the resolution of {} artifacts with repository {}",
+                    artifacts.size(), repositories.get(1).getId());
+        }
+
+        final var alternative = new ArrayList<>(repositories);
+
+        Collections.swap(alternative, 0, 1);
+
+        // the hedge downloads into a staging repository, so that a losing hedge never writes into the local repository
+        final var basedir = Files.createDirectories(localRepository.getBasedir().toPath());
+        final var staging = Files.createTempDirectory(basedir, ".hedge-");
+        final var stagingSession = newStagingSession(session, staging);
+
+        // the loser is not interrupted and completes in the background without affecting the result
+        final var secondary = CompletableFuture.supplyAsync(
+                () -> resolvePartition(stagingSession, artifacts, alternative), hedgeExecutor);
+        final var winner = new CompletableFuture<List<ArtifactResult>>();
+
+        primary.thenAccept(x -> completeIfResolved(winner, x));
+        secondary.thenAccept(x -> completeIfResolved(winner, x));
+
+        // without a complete resolution the result of the primary request is reported
+        CompletableFuture.allOf(primary, secondary).whenComplete((x, e) -> primary.whenComplete((y, f) -> {
+
+            if (f == null)
+                winner.complete(y);
+            else
+                winner.completeExceptionally(f instanceof CompletionException ? f.getCause() : f);
+        }));
+
+        try {
+
+            final var result = winner.get();
+            final var hedged = result == secondary.getNow(null);
+
+            metrics.recordHedge(hedged);
+
+            if (hedged)
+                return install(session, result);
+
+            return result;
+
+        } finally {
+
+            secondary.whenComplete((x, e) -> delete(staging));
+        }
+    }
+
+    private RepositorySystemSession newStagingSession(RepositorySystemSession session, Path directory) {
+
+        final var staging = new DefaultRepositorySystemSession(session);
+
+        staging.setLocalRepositoryManager(
+                repositorySystem.newLocalRepositoryManager(staging, new LocalRepository(directory.toFile())));
+        staging.setCache(new DefaultRepositoryCache());
+        staging.setData(new DefaultSessionData());
+        staging.setReadOnly();
+
+        return staging;
+    }
+
+    private static List<ArtifactResult> install(RepositorySystemSession session, List<ArtifactResult> results)
+            throws IOException {
+
+        final var manager = session.getLocalRepositoryManager();
+        final var installed = new ArrayList<ArtifactResult>(results.size());
+
+        // the staged files are moved to the place where the local repository expects a download of their repository
+        for (final var result : results) {
+
+            final var request = result.getRequest();
+            final var artifact = result.getArtifact();
+            final var repository = (RemoteRepository) result.getRepository();
+            final var target = manager.getRepository().getBasedir().toPath()
+                    .resolve(manager.getPathForRemoteArtifact(artifact, repository, request.getRequestContext()));
+
+            Files.createDirectories(target.getParent());
+            Files.move(artifact.getFile().toPath(), target,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            manager.add(session, new LocalArtifactRegistration(artifact, repository,
+                    Collections.singleton(request.getRequestContext())));
+
+            final var copy = new ArtifactResult(request);
+
+            copy.setArtifact(artifact.setFile(target.toFile()));
+            copy.setRepository(repository);
+            installed.add(copy);
+        }
+
+        return installed;
+    }
+
+    private void delete(Path directory) {
+
+        try (final var paths = Files.walk(directory)) {
+
+            for (final var path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.deleteIfExists(path);
+
+        } catch (IOException | UncheckedIOException e) {
+
+            logger.warn("Cannot delete the staging repository {}", directory, e);
+        }
+    }
+
+    private static void completeIfResolved(CompletableFuture<List<ArtifactResult>> winner,
+                                           List<ArtifactResult> results) {
+
+        if (results.stream().allMatch(ArtifactResult::isResolved))
+            winner.complete(results);
+    }
+
+    private List<ArtifactResult> resolvePartition(RepositorySystemSession session,
+                                                  List<DefaultArtifact> artifacts,
+                                                  List<RemoteRepository> repositories) {
+
+        final var requests = artifacts.stream()
+                .map(x -> new ArtifactRequest(x, repositories, null))
+                .collect(Collectors.toList());
+
+        try {
+
+            return repositorySystem.resolveArtifacts(session, requests);
+
+        } catch (ArtifactResolutionException e) {
+
+            // the exception carries a result for every request, including the successful ones
+            return e.getResults();
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+
+        // errors and unchecked exceptions of a worker are passed on unchanged
+        if (cause instanceof Error)
+            throw (Error) cause;
+
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+
+        return new UncheckedResolutionException((Exception) cause);
+    }
+
     private RepositorySystem newRepositorySystem() {
 
         final var locator = MavenRepositorySystemUtils.newServiceLocator();
 
         locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
-        locator.addService(TransporterFactory.class, FileTransporterFactory.class);
-        locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+
+        if (httpTransporterFactory == null) {
+
+            locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+            locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+
+        } else {
+
+            // replaces the default transporters, so that HTTP repositories cannot fall back to another client
+            locator.setServices(TransporterFactory.class, new FileTransporterFactory(), httpTransporterFactory);
+        }
 
         return locator.getService(RepositorySystem.class);
     }
 
-    private DefaultRepositorySystemSession newRepositorySystemSession() {
+    private RepositorySystemSession newRepositorySystemSession() {
 
         final var session = MavenRepositorySystemUtils.newSession();
 
         session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(session, localRepository));
+        session.setRepositoryListener(new TimingRepositoryListener());
+
+        // both are backed by concurrent maps and safe to share across resolutions
+        session.setCache(new DefaultRepositoryCache());
+        session.setData(new DefaultSessionData());
+
+        // parallel downloads within a single batch of the basic repository connector
+        session.setConfigProperty("aether.connector.basic.threads", threads);
 
         // if needed: session.setTransferListener(new ConsoleTransferListener());
-        // if needed: session.setRepositoryListener(new ConsoleRepositoryListener());
+
+        // the statistics of the selector outlive the session
+        if (repositorySelection != RepositorySelection.CONFIGURED)
+            session.setTransferListener(repositorySelector);
+
+        // the session is shared between threads and must not be reconfigured afterwards
+        session.setReadOnly();
 
         return session;
     }
+
+    private final class TimingRepositoryListener
+            extends AbstractRepositoryListener {
+
+        private final Map<Object, Long> timestamps = new ConcurrentHashMap<>();
+
+        @Override
+        public void artifactResolving(RepositoryEvent event) {
+
+            timestamps.put(getKey(event), System.nanoTime());
+        }
+
+        @Override
+        public void artifactResolved(RepositoryEvent event) {
+
+            final var timestamp = timestamps.remove(getKey(event));
+
+            if (timestamp == null)
+                return;
+
+            final var millis = (System.nanoTime() - timestamp) / 1_000_000;
+
+            if (event.getExceptions().isEmpty())
+                logger.debug("Resolved artifact {} in {} ms", event.getArtifact(), millis);
+            else
+                logger.debug("Failed to resolve artifact {} after {} ms", event.getArtifact(), millis);
+        }
+
+        private Object getKey(RepositoryEvent event) {
+
+            // the trace data is the originating request and identifies the artifact across both events
+            if (event.getTrace() != null && event.getTrace().getData() instanceof ArtifactRequest)
+                return event.getTrace().getData();
+
+            return event.getArtifact().getGroupId() + ":" + event.getArtifact().getArtifactId() + ":" +
+                    event.getArtifact().getBaseVersion();
+        }
+    }
+
+    public enum RepositorySelection {
+
+        CONFIGURED,
+        RANKED,
+        HEDGED
+    }
+
+    public static final class Builder {
+
+        private final List<RemoteRepository> remoteRepositories;
+        private final LocalRepository localRepository;
+        private int threads = DEFAULT_THREADS;
+        private Path artifactStore;
+        private TransporterFactory httpTransporterFactory;
+        private RepositorySelection repositorySelection = RepositorySelection.CONFIGURED;
+
+        public Builder(List<RemoteRepository> remoteRepositories, LocalRepository localRepository) {
+
+            this.remoteRepositories = remoteRepositories;
+            this.localRepository = localRepository;
+        }
+
+        public Builder(LinkedHashMap<String, String> remoteRepositories, String localRepository) {
+
+            this(remoteRepositories.entrySet().stream()
+                            .map(x -> new RemoteRepository.Builder(x.getKey(), "default", x.getValue()).build())
+                            .collect(Collectors.toList()),
+                    new LocalRepository(localRepository));
+        }
+
+        public Builder setThreads(int threads) {
+
+            this.threads = threads;
+
+            return this;
+        }
+
+        public Builder setArtifactStore(Path artifactStore) {
+
+            this.artifactStore = artifactStore;
+
+            return this;
+        }
+
+        public Builder setHttpTransporterFactory(TransporterFactory httpTransporterFactory) {
+
+            this.httpTransporterFactory = httpTransporterFactory;
+
+            return this;
+        }
+
+        public Builder setRepositorySelection(RepositorySelection repositorySelection) {
+
+            this.repositorySelection = repositorySelection;
+
+            return this;
+        }
+
+        public ArtifactResolver build() {
+
+            return new ArtifactResolver(this);
+        }
+    }
 }
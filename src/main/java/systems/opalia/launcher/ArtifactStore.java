@@ -0,0 +1,305 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class ArtifactStore {
+
+    // content-addressed blobs below blobs/<first two hex digits>/<SHA-256> and a single index file:
+    // int magic, int version, int count, int[count] record offsets sorted by coordinates,
+    // records of short length, UTF-8 coordinates, 64 bytes hex SHA-256, long size
+
+    private static final int MAGIC = 0x4f4c4153;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int HASH_SIZE = 64;
+
+    // file locks are held by the whole process, so writers of the same process are serialized here
+    private static final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Logger logger = LoggerFactory.getLogger(ArtifactStore.class);
+    private final Path directory;
+    private final Path indexFile;
+    private final Path lockFile;
+    private volatile ByteBuffer index;
+
+    ArtifactStore(Path directory) {
+
+        this.directory = directory;
+        this.indexFile = directory.resolve("index");
+        this.lockFile = directory.resolve("index.lock");
+        this.index = map(indexFile);
+    }
+
+    Path getDirectory() {
+
+        return directory;
+    }
+
+    Optional<Path> get(String coordinates) {
+
+        final var index = this.index;
+
+        if (index == null)
+            return Optional.empty();
+
+        try {
+
+            return find(index, coordinates);
+
+        } catch (IndexOutOfBoundsException e) {
+
+            logger.debug("Ignore damaged artifact store index {}", indexFile, e);
+            return Optional.empty();
+        }
+    }
+
+    void put(Map<String, Path> artifacts) {
+
+        if (artifacts.isEmpty())
+            return;
+
+        writeLock.lock();
+
+        try {
+
+            Files.createDirectories(directory);
+
+            // writers of several launcher processes are serialized, readers only see complete index files
+            try (final var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 final var lock = channel.lock()) {
+
+                final var records = readSafely(map(indexFile));
+
+                for (final var entry : artifacts.entrySet()) {
+
+                    final var hash = Checksums.sha256(entry.getValue());
+                    final var blob = getBlobPath(hash);
+
+                    if (!Files.isRegularFile(blob)) {
+
+                        Files.createDirectories(blob.getParent());
+
+                        final var temporary = Files.createTempFile(blob.getParent(), hash, ".tmp");
+
+                        Files.copy(entry.getValue(), temporary, StandardCopyOption.REPLACE_EXISTING);
+                        Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+                    }
+
+                    records.put(entry.getKey(), new Record(hash, Files.size(blob)));
+                }
+
+                write(records);
+                index = map(indexFile);
+            }
+
+        } catch (IOException e) {
+
+            // the store is an optimization only, the next resolution simply goes through Aether again
+            logger.warn("Cannot update artifact store {}", directory, e);
+
+        } finally {
+
+            writeLock.unlock();
+        }
+    }
+
+    private Optional<Path> find(ByteBuffer index, String coordinates) {
+
+        final var key = coordinates.getBytes(StandardCharsets.UTF_8);
+        var low = 0;
+        var high = index.getInt(8) - 1;
+
+        while (low <= high) {
+
+            final var middle = (low + high) >>> 1;
+            final var offset = index.getInt(HEADER_SIZE + middle * 4);
+            final var comparison = compare(index, offset, key);
+
+            if (comparison < 0) {
+
+                low = middle + 1;
+
+            } else if (comparison > 0) {
+
+                high = middle - 1;
+
+            } else {
+
+                final var length = index.getShort(offset) & 0xffff;
+                final var blob = getBlobPath(getString(index, offset + 2 + length, HASH_SIZE));
+                final var size = index.getLong(offset + 2 + length + HASH_SIZE);
+
+                // a single stat instead of a full checksum; blobs are never written in place
+                try {
+
+                    if (Files.size(blob) == size)
+                        return Optional.of(blob);
+
+                } catch (IOException e) {
+
+                    logger.debug("The stored artifact {} is missing", coordinates);
+                }
+
+                return Optional.empty();
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private Path getBlobPath(String hash) {
+
+        return directory.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private void write(Map<String, Record> records)
+            throws IOException {
+
+        final var keys = new ArrayList<byte[]>();
+        var size = HEADER_SIZE;
+
+        for (final var key : records.keySet()) {
+
+            final var bytes = key.getBytes(StandardCharsets.UTF_8);
+
+            keys.add(bytes);
+            size += 4 + 2 + bytes.length + HASH_SIZE + 8;
+        }
+
+        keys.sort(Arrays::compareUnsigned);
+
+        final var buffer = ByteBuffer.allocate(size);
+        var offset = HEADER_SIZE + keys.size() * 4;
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(keys.size());
+
+        for (final var key : keys) {
+
+            buffer.putInt(offset);
+            offset += 2 + key.length + HASH_SIZE + 8;
+        }
+
+        for (final var key : keys) {
+
+            final var record = records.get(new String(key, StandardCharsets.UTF_8));
+
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+            buffer.put(record.hash.getBytes(StandardCharsets.US_ASCII));
+            buffer.putLong(record.size);
+        }
+
+        final var temporary = Files.createTempFile(directory, "index", ".tmp");
+
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ByteBuffer map(Path file) {
+
+        if (!Files.isRegularFile(file))
+            return null;
+
+        // the mapping stays valid after the file is replaced, since a new index is moved over it
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+
+                logger.debug("Ignore artifact store index {} with unknown format", file);
+                return null;
+            }
+
+            return buffer;
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot read artifact store index {}", file, e);
+            return null;
+        }
+    }
+
+    private Map<String, Record> readSafely(ByteBuffer index) {
+
+        try {
+
+            return read(index);
+
+        } catch (IndexOutOfBoundsException e) {
+
+            // a damaged index is rebuilt from the artifacts of this and later resolutions
+            logger.warn("Discard damaged artifact store index {}", indexFile, e);
+            return new HashMap<>();
+        }
+    }
+
+    private static Map<String, Record> read(ByteBuffer index) {
+
+        final var records = new HashMap<String, Record>();
+
+        if (index == null)
+            return records;
+
+        for (var i = 0; i < index.getInt(8); i++) {
+
+            final var offset = index.getInt(HEADER_SIZE + i * 4);
+            final var length = index.getShort(offset) & 0xffff;
+
+            records.put(getString(index, offset + 2, length), new Record(
+                    getString(index, offset + 2 + length, HASH_SIZE),
+                    index.getLong(offset + 2 + length + HASH_SIZE)));
+        }
+
+        return records;
+    }
+
+    private static String getString(ByteBuffer index, int offset, int length) {
+
+        final var bytes = new byte[length];
+
+        for (var i = 0; i < length; i++)
+            bytes[i] = index.get(offset + i);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int compare(ByteBuffer index, int offset, byte[] key) {
+
+        final var length = index.getShort(offset) & 0xffff;
+
+        for (var i = 0; i < Math.min(length, key.length); i++) {
+
+            final var comparison = Integer.compare(index.get(offset + 2 + i) & 0xff, key[i] & 0xff);
+
+            if (comparison != 0)
+                return comparison;
+        }
+
+        return Integer.compare(length, key.length);
+    }
+
+    private static final class Record {
+
+        private final String hash;
+        private final long size;
+
+        private Record(String hash, long size) {
+
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.wiring.BundleRevision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class AutoDeployer
+        implements AutoCloseable {
+
+    // file events are collected until the directory has been quiet for the debounce period;
+    // each batch is applied with a single refresh, so the resolver runs once per batch and not per file
+
+    private final Logger logger = LoggerFactory.getLogger(AutoDeployer.class);
+    private final BundleContext bundleContext;
+    private final Path directory;
+    private final long debounce;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private final Map<Path, FileState> states = new HashMap<>();
+    private volatile boolean running = true;
+
+    AutoDeployer(BundleContext bundleContext, Path directory, long debounce) {
+
+        this.bundleContext = bundleContext;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.debounce = debounce;
+
+        try {
+
+            watchService = this.directory.getFileSystem().newWatchService();
+
+            this.directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        watcher = new Thread(this::watch, "auto-deployer");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void close() {
+
+        running = false;
+
+        try {
+
+            watchService.close();
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot close watch service of {}", directory, e);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+
+        // files changed between the boot and the registration of the watch service are picked up here
+        deploy(scan());
+
+        try {
+
+            while (running) {
+
+                final var paths = new HashSet<Path>();
+
+                collect(watchService.take(), paths);
+
+                for (var key = watchService.poll(debounce, TimeUnit.MILLISECONDS); key != null;
+                     key = watchService.poll(debounce, TimeUnit.MILLISECONDS))
+                    collect(key, paths);
+
+                deploy(paths);
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+
+            logger.debug("Stop watching {}", directory);
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> paths) {
+
+        for (final var event : key.pollEvents()) {
+
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                paths.addAll(scan());
+            else
+                paths.add(directory.resolve((Path) event.context()));
+        }
+
+        key.reset();
+    }
+
+    private Set<Path> scan() {
+
+        final var paths = new HashSet<>(getDeployedBundles().keySet());
+
+        try (final var stream = Files.newDirectoryStream(directory, "*.jar")) {
+
+            for (final var path : stream)
+                paths.add(path);
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot scan auto-deployment directory {}", directory, e);
+        }
+
+        return paths;
+    }
+
+    private void deploy(Set<Path> paths) {
+
+        if (!running)
+            return;
+
+        final var deployed = getDeployedBundles();
+        final var changed = new ArrayList<Bundle>();
+        final var installed = new ArrayList<Bundle>();
+
+        for (final var path : new TreeSet<>(paths)) {
+
+            if (!path.getFileName().toString().endsWith(".jar"))
+                continue;
+
+            final var bundle = deployed.get(path);
+
+            try {
+
+                if (!Files.isRegularFile(path)) {
+
+                    states.remove(path);
+
+                    if (bundle != null) {
+
+                        logger.info("Auto-deploy uninstall {}", path);
+
+                        bundle.uninstall();
+                        changed.add(bundle);
+                    }
+
+                    continue;
+                }
+
+                final var state = new FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+
+                if (bundle == null) {
+
+                    logger.info("Auto-deploy install {}", path);
+
+                    // the same location as used by the auto processor of Apache Felix at boot time
+                    installed.add(bundleContext.installBundle(path.toFile().toURI().toString()));
+
+                } else if (isChanged(path, state, bundle)) {
+
+                    logger.info("Auto-deploy update {}", path);
+
+                    try (final var stream = Files.newInputStream(path)) {
+
+                        bundle.update(stream);
+                    }
+
+                    changed.add(bundle);
+                }
+
+                // a failed deployment is not recorded, so the next modification retries it
+                states.put(path, state);
+
+            } catch (BundleException | IOException e) {
+
+                // an incompletely written file fails here and is retried with its next modification
+                logger.warn("Cannot auto-deploy {}", path, e);
+            }
+        }
+
+        if (!changed.isEmpty())
+            ManagedBundles.refresh(bundleContext, changed);
+
+        for (final var bundle : installed) {
+
+            if ((bundle.adapt(BundleRevision.class).getTypes() & BundleRevision.TYPE_FRAGMENT) != 0)
+                continue;
+
+            try {
+
+                bundle.start();
+
+            } catch (BundleException e) {
+
+                logger.warn("Cannot start auto-deployed bundle {}", bundle.getSymbolicName(), e);
+            }
+        }
+    }
+
+    private boolean isChanged(Path path, FileState state, Bundle bundle) {
+
+        final var previous = states.get(path);
+
+        // bundles installed before this deployer started, e.g. at boot time, have no recorded file state yet
+        if (previous == null)
+            return state.modified > bundle.getLastModified();
+
+        return previous.size != state.size || previous.modified != state.modified;
+    }
+
+    private Map<Path, Bundle> getDeployedBundles() {
+
+        final var bundles = new HashMap<Path, Bundle>();
+        final var prefix = directory.toFile().toURI().toString();
+
+        for (final var bundle : bundleContext.getBundles()) {
+
+            final var location = bundle.getLocation();
+
+            if (location.startsWith(prefix))
+                bundles.put(Paths.get(URI.create(location)), bundle);
+        }
+
+        return bundles;
+    }
+
+    private static final class FileState {
+
+        private final long size;
+        private final long modified;
+
+        private FileState(long size, long modified) {
+
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+public final class BootProfiler {
+
+    public static final String CATEGORY_PHASE = "phase";
+    public static final String CATEGORY_BUNDLE_INSTALL = "bundle-install";
+    public static final String CATEGORY_BUNDLE_START = "bundle-start";
+
+    // CPU time and allocations are measured per thread, so a span must end on the thread it began
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported;
+    private final boolean allocationSupported;
+    private final long origin = System.nanoTime();
+    private final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    BootProfiler() {
+
+        cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+        allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported() &&
+                ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    public Span begin(String category, String name) {
+
+        return new Span(category, name);
+    }
+
+    public List<Entry> getEntries() {
+
+        final var list = new ArrayList<>(entries);
+
+        list.sort(Comparator.comparingLong(Entry::getStartNanos));
+
+        return list;
+    }
+
+    public List<Entry> getEntries(String category) {
+
+        final var list = getEntries();
+
+        list.removeIf(x -> !x.getCategory().equals(category));
+
+        return list;
+    }
+
+    public void write(Path file, Format format) {
+
+        final var builder = new StringBuilder();
+
+        if (format == Format.CHROME)
+            writeTraceEvents(builder);
+        else
+            writeEntries(builder);
+
+        try {
+
+            if (file.getParent() != null)
+                Files.createDirectories(file.getParent());
+
+            Files.writeString(file, builder, StandardCharsets.UTF_8);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeEntries(StringBuilder builder) {
+
+        builder.append("{\"entries\":[");
+
+        var first = true;
+
+        for (final var entry : getEntries()) {
+
+            if (!first)
+                builder.append(',');
+
+            first = false;
+
+            builder.append("\n{\"category\":");
+            appendString(builder, entry.getCategory());
+            builder.append(",\"name\":");
+            appendString(builder, entry.getName());
+            builder.append(",\"thread\":");
+            appendString(builder, entry.getThreadName());
+            builder.append(",\"startNanos\":").append(entry.getStartNanos());
+            builder.append(",\"wallNanos\":").append(entry.getWallNanos());
+            builder.append(",\"cpuNanos\":").append(entry.getCpuNanos());
+            builder.append(",\"allocatedBytes\":").append(entry.getAllocatedBytes());
+            builder.append('}');
+        }
+
+        builder.append("\n]}\n");
+    }
+
+    private void writeTraceEvents(StringBuilder builder) {
+
+        // complete events ("ph":"X") of the Chrome trace event format, viewable with chrome://tracing or Perfetto
+        final var pid = ProcessHandle.current().pid();
+        final var threads = new ArrayList<Long>();
+
+        builder.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+
+        var first = true;
+
+        for (final var entry : getEntries()) {
+
+            if (!first)
+                builder.append(',');
+
+            first = false;
+
+            if (!threads.contains(entry.getThreadId())) {
+
+                threads.add(entry.getThreadId());
+
+                builder.append("\n{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":").append(pid);
+                builder.append(",\"tid\":").append(entry.getThreadId());
+                builder.append(",\"args\":{\"name\":");
+                appendString(builder, entry.getThreadName());
+                builder.append("}},");
+            }
+
+            builder.append("\n{\"ph\":\"X\",\"cat\":");
+            appendString(builder, entry.getCategory());
+            builder.append(",\"name\":");
+            appendString(builder, entry.getName());
+            builder.append(",\"pid\":").append(pid);
+            builder.append(",\"tid\":").append(entry.getThreadId());
+            builder.append(",\"ts\":").append(entry.getStartNanos() / 1000);
+            builder.append(",\"dur\":").append(entry.getWallNanos() / 1000);
+            builder.append(",\"args\":{\"cpuNanos\":").append(entry.getCpuNanos());
+            builder.append(",\"allocatedBytes\":").append(entry.getAllocatedBytes());
+            builder.append("}}");
+        }
+
+        builder.append("\n]}\n");
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+
+        builder.append('"');
+
+        for (var i = 0; i < value.length(); i++) {
+
+            final var c = value.charAt(i);
+
+            if (c == '"' || c == '\\')
+                builder.append('\\').append(c);
+            else if (c < 0x20)
+                builder.append(String.format("\\u%04x", (int) c));
+            else
+                builder.append(c);
+        }
+
+        builder.append('"');
+    }
+
+    private long getCpuTime() {
+
+        return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long getAllocatedBytes() {
+
+        if (!allocationSupported)
+            return -1;
+
+        return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public final class Span
+            implements AutoCloseable {
+
+        private final String category;
+        private final String name;
+        private final long wallTime;
+        private final long cpuTime;
+        private final long allocatedBytes;
+
+        private Span(String category, String name) {
+
+            this.category = category;
+            this.name = name;
+            this.cpuTime = getCpuTime();
+            this.allocatedBytes = BootProfiler.this.getAllocatedBytes();
+            this.wallTime = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+
+            final var wallEnd = System.nanoTime();
+            final var cpuEnd = getCpuTime();
+            final var allocatedEnd = BootProfiler.this.getAllocatedBytes();
+            final var thread = Thread.currentThread();
+
+            entries.add(new Entry(
+                    category,
+                    name,
+                    thread.getId(),
+                    thread.getName(),
+                    wallTime - origin,
+                    wallEnd - wallTime,
+                    cpuTime < 0 ? -1 : cpuEnd - cpuTime,
+                    allocatedBytes < 0 ? -1 : allocatedEnd - allocatedBytes));
+        }
+    }
+
+    public static final class Entry {
+
+        private final String category;
+        private final String name;
+        private final long threadId;
+        private final String threadName;
+        private final long startNanos;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        private Entry(String category,
+                      String name,
+                      long threadId,
+                      String threadName,
+                      long startNanos,
+                      long wallNanos,
+                      long cpuNanos,
+                      long allocatedBytes) {
+
+            this.category = category;
+            this.name = name;
+            this.threadId = threadId;
+            this.threadName = threadName;
+            this.startNanos = startNanos;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getCategory() {
+
+            return category;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+
+        public long getThreadId() {
+
+            return threadId;
+        }
+
+        public String getThreadName() {
+
+            return threadName;
+        }
+
+        public long getStartNanos() {
+
+            return startNanos;
+        }
+
+        public long getWallNanos() {
+
+            return wallNanos;
+        }
+
+        // -1 if the JVM does not measure CPU time of threads
+        public long getCpuNanos() {
+
+            return cpuNanos;
+        }
+
+        // -1 if the JVM does not measure allocations of threads
+        public long getAllocatedBytes() {
+
+            return allocatedBytes;
+        }
+    }
+
+    public enum Format {
+
+        JSON,
+        CHROME
+    }
+}
@@ -0,0 +1,154 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.osgi.framework.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import systems.opalia.launcher.exception.UncheckedResolutionException;
+
+
+final class BundleArtifacts {
+
+    private static final Logger logger = LoggerFactory.getLogger(BundleArtifacts.class);
+
+    private final ArtifactResolver artifactResolver;
+    private final List<String> coordinates;
+    private final Resolution resolution;
+    private final LockFile lockFile;
+    private final LockFile.Mode lockMode;
+
+    BundleArtifacts(ArtifactResolver artifactResolver,
+                    List<String> coordinates,
+                    Resolution resolution,
+                    LockFile lockFile,
+                    LockFile.Mode lockMode) {
+
+        this.artifactResolver = artifactResolver;
+        this.coordinates = coordinates;
+        this.resolution = resolution;
+        this.lockFile = lockFile;
+        this.lockMode = lockMode;
+    }
+
+    List<Artifact> resolve() {
+
+        if (lockMode == LockFile.Mode.READ) {
+
+            final var lockedArtifacts = lockFile.read(coordinates, resolution);
+
+            if (lockedArtifacts.isPresent()) {
+
+                logger.info("Take bundle artifacts from lock file {}", lockFile.getPath());
+
+                return lockedArtifacts.get();
+            }
+
+            logger.info("The lock file {} is missing or stale", lockFile.getPath());
+        }
+
+        logger.debug("Resolve bundle artifacts");
+
+        final var requestedArtifacts = coordinates.stream()
+                .map(DefaultArtifact::new)
+                .collect(Collectors.toList());
+        final var artifacts = resolution == Resolution.TRANSITIVE ?
+                filterBundles(requestedArtifacts, artifactResolver.resolveTransitive(requestedArtifacts,
+                        JavaScopes.COMPILE, List.of(JavaScopes.COMPILE, JavaScopes.RUNTIME))) :
+                artifactResolver.resolve(requestedArtifacts);
+
+        if (lockMode == LockFile.Mode.WRITE) {
+
+            lockFile.write(coordinates, resolution, artifacts);
+
+            logger.info("The lock file {} has been written", lockFile.getPath());
+        }
+
+        return artifacts;
+    }
+
+    static List<Artifact> filterBundles(List<DefaultArtifact> requestedArtifacts, List<Artifact> artifacts) {
+
+        final var roots = requestedArtifacts.stream()
+                .map(x -> x.getGroupId() + ":" + x.getArtifactId())
+                .collect(Collectors.toSet());
+        final var bundles = new ArrayList<Artifact>();
+
+        // plain libraries among the dependencies cannot be installed; requested artifacts are always kept
+        for (final var artifact : artifacts) {
+
+            if (roots.contains(artifact.getGroupId() + ":" + artifact.getArtifactId()) || isBundle(artifact))
+                bundles.add(artifact);
+            else
+                logger.debug("Skip dependency {}, which is not an OSGi bundle", artifact);
+        }
+
+        logger.debug("Take {} of {} transitively resolved artifacts as bundles", bundles.size(), artifacts.size());
+
+        return bundles;
+    }
+
+    static boolean isBundle(Artifact artifact) {
+
+        try (final var jar = new JarFile(artifact.getFile())) {
+
+            final var manifest = jar.getManifest();
+
+            return manifest != null && manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME) != null;
+
+        } catch (IOException e) {
+
+            return false;
+        }
+    }
+
+    static void verifyChecksums(List<Artifact> artifacts) {
+
+        var verified = 0;
+
+        // files already present in the local repository are not checked again by the resolver
+        for (final var artifact : artifacts) {
+
+            final var file = artifact.getFile().toPath();
+            final var checksumFile = file.resolveSibling(file.getFileName() + ".sha1");
+
+            if (!Files.isRegularFile(checksumFile)) {
+
+                logger.warn("No checksum available for artifact {}", artifact);
+                continue;
+            }
+
+            try {
+
+                // a checksum file may carry the file name after the hash
+                final var expected = Files.readString(checksumFile).trim().split("\\s+")[0];
+
+                if (!Checksums.digest(file, "SHA-1").equalsIgnoreCase(expected))
+                    throw new UncheckedResolutionException(
+                            new Exception("Checksum mismatch of artifact " + artifact + " in " + file));
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+
+            verified++;
+        }
+
+        logger.debug("Verified the checksums of {} of {} artifacts", verified, artifacts.size());
+    }
+
+    enum Resolution {
+
+        DIRECT,
+        TRANSITIVE
+    }
+}
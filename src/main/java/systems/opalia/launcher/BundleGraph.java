@@ -0,0 +1,189 @@
+package systems.opalia.launcher;
+
+import java.util.*;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleWiring;
+
+
+final class BundleGraph {
+
+    private final List<Bundle> bundles;
+    private final Map<Bundle, Set<Bundle>> providers;
+    private final Map<Bundle, Set<Bundle>> consumers;
+    private final List<List<Bundle>> layers;
+
+    private BundleGraph(List<Bundle> bundles, Map<Bundle, Set<Bundle>> providers) {
+
+        this.bundles = List.copyOf(bundles);
+        this.providers = new HashMap<>();
+        this.consumers = new HashMap<>();
+        this.layers = new ArrayList<>();
+
+        for (final var bundle : bundles) {
+
+            this.providers.put(bundle, new LinkedHashSet<>());
+            this.consumers.put(bundle, new LinkedHashSet<>());
+        }
+
+        sort(providers);
+    }
+
+    static BundleGraph of(List<Bundle> bundles) {
+
+        final var members = new HashSet<>(bundles);
+        final var providers = new HashMap<Bundle, Set<Bundle>>();
+
+        for (final var bundle : bundles) {
+
+            final var wiring = bundle.adapt(BundleWiring.class);
+            final var set = new LinkedHashSet<Bundle>();
+
+            // unresolved bundles have no wiring and therefore no known dependencies
+            if (wiring != null)
+                for (final var wire : wiring.getRequiredWires(null)) {
+
+                    final var provider = wire.getProviderWiring().getBundle();
+
+                    if (provider != bundle && members.contains(provider))
+                        set.add(provider);
+                }
+
+            providers.put(bundle, set);
+        }
+
+        return new BundleGraph(bundles, providers);
+    }
+
+    List<Bundle> getBundles() {
+
+        return bundles;
+    }
+
+    Set<Bundle> getProviders(Bundle bundle) {
+
+        return Collections.unmodifiableSet(providers.get(bundle));
+    }
+
+    Set<Bundle> getConsumers(Bundle bundle) {
+
+        return Collections.unmodifiableSet(consumers.get(bundle));
+    }
+
+    List<List<Bundle>> getLayers() {
+
+        return Collections.unmodifiableList(layers);
+    }
+
+    private void sort(Map<Bundle, Set<Bundle>> wires) {
+
+        // Kahn's algorithm in install order; a cycle is broken at the earliest installed bundle of its component
+        final var remaining = new LinkedHashMap<Bundle, Set<Bundle>>();
+        final var depth = new HashMap<Bundle, Integer>();
+
+        for (final var bundle : bundles)
+            remaining.put(bundle, new LinkedHashSet<>(wires.get(bundle)));
+
+        while (!remaining.isEmpty()) {
+
+            var progress = false;
+
+            for (final var iterator = remaining.entrySet().iterator(); iterator.hasNext(); ) {
+
+                final var entry = iterator.next();
+
+                if (!depth.keySet().containsAll(entry.getValue()))
+                    continue;
+
+                final var bundle = entry.getKey();
+                var layer = 0;
+
+                for (final var provider : entry.getValue()) {
+
+                    layer = Math.max(layer, depth.get(provider) + 1);
+                    providers.get(bundle).add(provider);
+                    consumers.get(provider).add(bundle);
+                }
+
+                depth.put(bundle, layer);
+
+                while (layers.size() <= layer)
+                    layers.add(new ArrayList<>());
+
+                layers.get(layer).add(bundle);
+                iterator.remove();
+                progress = true;
+            }
+
+            if (!progress) {
+
+                final var component = findSinkComponent(remaining);
+                final var bundle = remaining.keySet().stream().filter(component::contains).findFirst().orElseThrow();
+
+                remaining.get(bundle).removeAll(component);
+            }
+        }
+    }
+
+    private static Set<Bundle> findSinkComponent(Map<Bundle, Set<Bundle>> remaining) {
+
+        // Tarjan's algorithm; the first completed component requires no bundle of another remaining component
+        final var index = new HashMap<Bundle, Integer>();
+        final var lowLink = new HashMap<Bundle, Integer>();
+        final var stack = new ArrayDeque<Bundle>();
+
+        for (final var bundle : remaining.keySet())
+            if (!index.containsKey(bundle)) {
+
+                final var component = connect(bundle, remaining, index, lowLink, stack);
+
+                if (component != null)
+                    return component;
+            }
+
+        throw new IllegalStateException("Expect a strongly connected component among the remaining bundles");
+    }
+
+    private static Set<Bundle> connect(Bundle bundle,
+                                       Map<Bundle, Set<Bundle>> remaining,
+                                       Map<Bundle, Integer> index,
+                                       Map<Bundle, Integer> lowLink,
+                                       Deque<Bundle> stack) {
+
+        index.put(bundle, index.size());
+        lowLink.put(bundle, index.get(bundle));
+        stack.push(bundle);
+
+        for (final var provider : remaining.get(bundle)) {
+
+            if (!remaining.containsKey(provider))
+                continue;
+
+            if (!index.containsKey(provider)) {
+
+                final var component = connect(provider, remaining, index, lowLink, stack);
+
+                if (component != null)
+                    return component;
+
+                lowLink.put(bundle, Math.min(lowLink.get(bundle), lowLink.get(provider)));
+
+            } else if (stack.contains(provider))
+                lowLink.put(bundle, Math.min(lowLink.get(bundle), index.get(provider)));
+        }
+
+        if (!lowLink.get(bundle).equals(index.get(bundle)))
+            return null;
+
+        final var component = new HashSet<Bundle>();
+        Bundle member;
+
+        do {
+
+            member = stack.pop();
+            component.add(member);
+
+        } while (member != bundle);
+
+        return component;
+    }
+}
@@ -0,0 +1,124 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.eclipse.aether.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class BundleLocations {
+
+    // Felix copies a bundle installed from a file location into its cache,
+    // whereas a reference location is read in place
+
+    private static final String FILE_PREFIX = "file://";
+    private static final String REFERENCE_PREFIX = "reference:file:";
+
+    private final Logger logger = LoggerFactory.getLogger(BundleLocations.class);
+    private final Mode mode;
+    private final Path linkDirectory;
+
+    BundleLocations(Mode mode, Path linkDirectory) {
+
+        this.mode = mode;
+        this.linkDirectory = linkDirectory;
+    }
+
+    String toLocation(Artifact artifact) {
+
+        final var file = artifact.getFile().toPath().toAbsolutePath();
+
+        switch (mode) {
+
+            case LINK:
+                return REFERENCE_PREFIX + link(artifact, file);
+
+            case REFERENCE:
+                return REFERENCE_PREFIX + file;
+
+            default:
+                return FILE_PREFIX + file;
+        }
+    }
+
+    private Path link(Artifact artifact, Path file) {
+
+        // a private link keeps the content stable even if the local repository replaces the file later
+        final var target = linkDirectory.resolve(artifact.getGroupId() + "-" + file.getFileName());
+
+        try {
+
+            Files.createDirectories(linkDirectory);
+
+            if (isCurrent(target, file))
+                return target;
+
+            // the link is made under a temporary name and moved over the target, so that the target is never missing
+            final var temporary = Files.createTempFile(linkDirectory, target.getFileName().toString(), ".tmp");
+
+            try {
+
+                Files.delete(temporary);
+                Files.createLink(temporary, file);
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (IOException | UnsupportedOperationException e) {
+
+                logger.debug("Cannot hard-link {}, copy it instead", file);
+
+                Files.deleteIfExists(temporary);
+                transfer(file, target);
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return target;
+    }
+
+    private static boolean isCurrent(Path target, Path file)
+            throws IOException {
+
+        if (!Files.exists(target))
+            return false;
+
+        // a hard link shares the file, a copy keeps the size and modification time of its source
+        return Files.isSameFile(target, file) || (Files.size(target) == Files.size(file) &&
+                Files.getLastModifiedTime(target).equals(Files.getLastModifiedTime(file)));
+    }
+
+    private static void transfer(Path source, Path target)
+            throws IOException {
+
+        final var temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        // lets the kernel copy the data, e.g. via sendfile or copy_file_range
+        try (final var in = FileChannel.open(source, StandardOpenOption.READ);
+             final var out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+
+            final var size = in.size();
+            var position = 0L;
+
+            while (position < size)
+                position += in.transferTo(position, size - position, out);
+        }
+
+        Files.setLastModifiedTime(temporary, Files.getLastModifiedTime(source));
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    enum Mode {
+
+        COPY,
+        LINK,
+        REFERENCE
+    }
+}
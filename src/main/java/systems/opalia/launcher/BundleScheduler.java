@@ -0,0 +1,263 @@
+package systems.opalia.launcher;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import systems.opalia.launcher.exception.UncheckedBundleException;
+import systems.opalia.launcher.metrics.BundleMetrics;
+
+
+final class BundleScheduler {
+
+    private final Logger logger = LoggerFactory.getLogger(BundleScheduler.class);
+    private final int threads;
+    private final BootProfiler profiler;
+    private final BundleMetrics metrics;
+
+    BundleScheduler(int threads, BootProfiler profiler, BundleMetrics metrics) {
+
+        if (threads < 1)
+            throw new IllegalArgumentException("Expect at least one lifecycle thread");
+
+        this.threads = threads;
+        this.profiler = profiler;
+        this.metrics = metrics;
+    }
+
+    void start(List<Bundle> bundles) {
+
+        final var timings = new HashMap<Bundle, Timing>();
+
+        for (final var bundle : bundles)
+            start(bundle, timings);
+    }
+
+    void startParallel(BundleGraph graph) {
+
+        final var timings = new ConcurrentHashMap<Bundle, Timing>();
+        final var futures = new LinkedHashMap<Bundle, CompletableFuture<Void>>();
+        final var executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("bundle-start"));
+
+        try {
+
+            // layers are in topological order, so the futures of all providers already exist
+            for (final var layer : graph.getLayers())
+                for (final var bundle : layer) {
+
+                    final var dependencies = graph.getProviders(bundle).stream()
+                            .map(futures::get)
+                            .toArray(CompletableFuture[]::new);
+
+                    futures.put(bundle, CompletableFuture.allOf(dependencies)
+                            .thenRunAsync(() -> start(bundle, timings), executor));
+                }
+
+            try {
+
+                CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+
+            } catch (CompletionException e) {
+
+                // failures are collected per bundle below
+            }
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        logCriticalPath(graph, timings);
+
+        // a failed provider fails its consumers with the same exception, so each failure is reported once
+        final var failures = new LinkedHashSet<Throwable>();
+
+        for (final var entry : futures.entrySet())
+            if (entry.getValue().isCompletedExceptionally()) {
+
+                try {
+
+                    entry.getValue().join();
+
+                } catch (CompletionException e) {
+
+                    failures.add(e.getCause());
+
+                    if (!timings.containsKey(entry.getKey()))
+                        logger.warn("Skip start of bundle {} because a required bundle failed", entry.getKey());
+                }
+            }
+
+        if (!failures.isEmpty()) {
+
+            final var iterator = failures.iterator();
+            final var exception = iterator.next();
+
+            iterator.forEachRemaining(exception::addSuppressed);
+
+            if (exception instanceof Error)
+                throw (Error) exception;
+
+            throw (RuntimeException) exception;
+        }
+    }
+
+    List<Bundle> stop(List<List<Bundle>> layers, long bundleTimeout, long deadline) {
+
+        final var overdue = new ArrayList<Bundle>();
+
+        // a hanging bundle blocks its thread, hence each bundle in a layer gets its own one
+        final var executor = Executors.newCachedThreadPool(new NamedThreadFactory("bundle-stop"));
+
+        try {
+
+            for (var i = 0; i < layers.size(); i++) {
+
+                final var now = System.nanoTime();
+
+                if (now - deadline >= 0) {
+
+                    logger.warn("The shutdown deadline has been reached; leave {} bundles to the framework",
+                            layers.subList(i, layers.size()).stream().mapToInt(List::size).sum());
+                    break;
+                }
+
+                final var bundleDeadline = now + bundleTimeout * 1_000_000;
+                final var layerDeadline = bundleDeadline - deadline < 0 ? bundleDeadline : deadline;
+                final var futures = new LinkedHashMap<Bundle, Future<?>>();
+
+                for (final var bundle : layers.get(i))
+                    futures.put(bundle, executor.submit(() -> {
+
+                        stop(bundle);
+                        return null;
+                    }));
+
+                for (final var entry : futures.entrySet()) {
+
+                    try {
+
+                        entry.getValue().get(Math.max(0, layerDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                    } catch (TimeoutException e) {
+
+                        overdue.add(entry.getKey());
+                        entry.getValue().cancel(true);
+                        metrics.recordStopTimeout();
+
+                    } catch (ExecutionException e) {
+
+                        logger.error("Cannot stop bundle {}", entry.getKey(), e.getCause());
+                    }
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        if (!overdue.isEmpty())
+            logger.warn("The following bundles exceeded their stop timeout: {}", overdue);
+
+        return overdue;
+    }
+
+    private void stop(Bundle bundle)
+            throws BundleException {
+
+        final var begin = System.nanoTime();
+
+        bundle.stop();
+
+        final var duration = System.nanoTime() - begin;
+
+        metrics.recordStop(duration);
+
+        logger.debug("Stopped bundle {} in {} ms", bundle, duration / 1_000_000);
+    }
+
+    private void start(Bundle bundle, Map<Bundle, Timing> timings) {
+
+        final var timing = new Timing(System.nanoTime());
+        var failed = true;
+
+        try (final var span = profiler.begin(BootProfiler.CATEGORY_BUNDLE_START, bundle.toString())) {
+
+            bundle.start();
+            failed = false;
+
+        } catch (BundleException e) {
+
+            throw new UncheckedBundleException("Cannot start bundle " + bundle, e);
+
+        } finally {
+
+            timing.end = System.nanoTime();
+            timings.put(bundle, timing);
+            metrics.recordStart(timing.end - timing.begin, failed);
+
+            logger.debug("Started bundle {} in {} ms", bundle, timing.millis());
+        }
+    }
+
+    private void logCriticalPath(BundleGraph graph, Map<Bundle, Timing> timings) {
+
+        final var last = timings.entrySet().stream()
+                .max(Comparator.comparingLong(x -> x.getValue().end))
+                .map(Map.Entry::getKey);
+
+        if (last.isEmpty())
+            return;
+
+        // walk back along the provider that finished last, since it delayed the start of its consumer
+        final var path = new LinkedList<Bundle>();
+        var current = last.get();
+
+        while (current != null) {
+
+            path.addFirst(current);
+
+            current = graph.getProviders(current).stream()
+                    .filter(timings::containsKey)
+                    .max(Comparator.comparingLong(x -> timings.get(x).end))
+                    .orElse(null);
+        }
+
+        final var total = (timings.get(path.getLast()).end - timings.get(path.getFirst()).begin) / 1_000_000;
+
+        logger.debug("Critical path of bundle start ({} ms): {}", total, path.stream()
+                .map(x -> x + " (" + timings.get(x).millis() + " ms)")
+                .collect(Collectors.joining(" -> ")));
+    }
+
+    private static final class Timing {
+
+        private final long begin;
+        private long end;
+
+        private Timing(long begin) {
+
+            this.begin = begin;
+        }
+
+        private long millis() {
+
+            return (end - begin) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package systems.opalia.launcher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+
+public final class BundleUpdateReport {
+
+    private final List<Outcome> outcomes;
+
+    BundleUpdateReport(List<Outcome> outcomes) {
+
+        this.outcomes = List.copyOf(outcomes);
+    }
+
+    public List<Outcome> getOutcomes() {
+
+        return outcomes;
+    }
+
+    public List<Outcome> getOutcomes(Status status) {
+
+        return outcomes.stream()
+                .filter(x -> x.getStatus() == status)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isSuccessful() {
+
+        return outcomes.stream().noneMatch(x -> x.getStatus() == Status.FAILED);
+    }
+
+    @Override
+    public String toString() {
+
+        return outcomes.stream()
+                .map(Outcome::toString)
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    public static final class Outcome {
+
+        private final String coordinates;
+        private final String symbolicName;
+        private final long bundleId;
+        private final Status status;
+        private final Exception error;
+
+        Outcome(String coordinates, String symbolicName, long bundleId, Status status, Exception error) {
+
+            this.coordinates = coordinates;
+            this.symbolicName = symbolicName;
+            this.bundleId = bundleId;
+            this.status = status;
+            this.error = error;
+        }
+
+        public String getCoordinates() {
+
+            return coordinates;
+        }
+
+        // empty if the artifact could not be resolved or is not a bundle
+        public Optional<String> getSymbolicName() {
+
+            return Optional.ofNullable(symbolicName);
+        }
+
+        // -1 if no bundle is installed for the artifact
+        public long getBundleId() {
+
+            return bundleId;
+        }
+
+        public Status getStatus() {
+
+            return status;
+        }
+
+        public Optional<Exception> getError() {
+
+            return Optional.ofNullable(error);
+        }
+
+        @Override
+        public String toString() {
+
+            return coordinates + " " + status + (error == null ? "" : ": " + error.getMessage());
+        }
+    }
+
+    public enum Status {
+
+        INSTALLED,
+        UPDATED,
+        UNCHANGED,
+        FAILED
+    }
+}
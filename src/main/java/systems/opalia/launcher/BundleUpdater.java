@@ -0,0 +1,305 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.jar.JarFile;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.FrameworkWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import systems.opalia.launcher.exception.UncheckedBundleException;
+
+
+final class BundleUpdater {
+
+    // all artifacts of a batch are applied together: the dependency closure is stopped once,
+    // the wiring is refreshed and resolved once and the previously active bundles are started again
+
+    private final Logger logger = LoggerFactory.getLogger(BundleUpdater.class);
+    private final BundleContext bundleContext;
+    private final ArtifactResolver artifactResolver;
+    private final BundleScheduler bundleScheduler;
+    private final BundleLocations bundleLocations;
+    private final ManagedBundles managedBundles;
+    private final int threads;
+
+    BundleUpdater(BundleContext bundleContext,
+                  ArtifactResolver artifactResolver,
+                  BundleScheduler bundleScheduler,
+                  BundleLocations bundleLocations,
+                  ManagedBundles managedBundles,
+                  int threads) {
+
+        this.bundleContext = bundleContext;
+        this.artifactResolver = artifactResolver;
+        this.bundleScheduler = bundleScheduler;
+        this.bundleLocations = bundleLocations;
+        this.managedBundles = managedBundles;
+        this.threads = threads;
+    }
+
+    BundleUpdateReport update(Collection<String> coordinates, long bundleTimeout, long deadline) {
+
+        final var tasks = new ArrayList<Task>();
+
+        for (final var coordinate : new LinkedHashSet<>(coordinates))
+            tasks.add(new Task(coordinate));
+
+        resolve(tasks);
+
+        final var frameworkWiring = bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+                .adapt(FrameworkWiring.class);
+        final var targets = new LinkedHashMap<Bundle, Task>();
+        final var symbolicNames = new HashMap<String, Task>();
+
+        for (final var task : tasks)
+            if (task.status == null)
+                prepare(task, targets, symbolicNames);
+
+        // the closure contains the bundles to update and everything wired to them
+        final var closure = new ArrayList<>(frameworkWiring.getDependencyClosure(targets.keySet()));
+        final var active = new ArrayList<Bundle>();
+
+        for (final var bundle : closure)
+            if ((bundle.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0)
+                active.add(bundle);
+
+        final var layers = new ArrayList<>(BundleGraph.of(active).getLayers());
+
+        Collections.reverse(layers);
+        bundleScheduler.stop(layers, bundleTimeout, deadline);
+
+        final var updated = new ArrayList<Bundle>();
+        final var installed = new ArrayList<Bundle>();
+
+        for (final var entry : targets.entrySet())
+            apply(entry.getValue(), entry.getKey(), updated);
+
+        for (final var task : tasks)
+            if (task.status == null)
+                install(task, installed);
+
+        final var changes = new LinkedHashMap<Artifact, Bundle>();
+
+        // the framework holds the new revisions from now on, even if a restart fails later
+        for (final var task : tasks)
+            if (task.status == BundleUpdateReport.Status.UPDATED || task.status == BundleUpdateReport.Status.INSTALLED)
+                changes.put(task.artifact, task.bundle);
+
+        if (!changes.isEmpty())
+            managedBundles.record(changes);
+
+        if (!updated.isEmpty())
+            ManagedBundles.refresh(bundleContext, updated);
+
+        final var resolvable = new ArrayList<>(closure);
+
+        resolvable.addAll(installed);
+        frameworkWiring.resolveBundles(resolvable);
+
+        final var restart = new ArrayList<>(active);
+
+        for (final var bundle : installed)
+            if ((bundle.adapt(BundleRevision.class).getTypes() & BundleRevision.TYPE_FRAGMENT) == 0)
+                restart.add(bundle);
+
+        start(restart, tasks);
+
+        final var outcomes = new ArrayList<BundleUpdateReport.Outcome>();
+
+        for (final var task : tasks)
+            outcomes.add(task.toOutcome());
+
+        return new BundleUpdateReport(outcomes);
+    }
+
+    private void resolve(List<Task> tasks) {
+
+        // one request per artifact, so a failure is reported for its artifact only
+        final var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())),
+                new NamedThreadFactory("bundle-update"));
+
+        try {
+
+            final var futures = new ArrayList<CompletableFuture<Artifact>>();
+
+            for (final var task : tasks)
+                futures.add(CompletableFuture.supplyAsync(() ->
+                        artifactResolver.resolve(new DefaultArtifact(task.coordinates)), executor));
+
+            for (var i = 0; i < tasks.size(); i++) {
+
+                try {
+
+                    tasks.get(i).artifact = futures.get(i).join();
+
+                } catch (CompletionException e) {
+
+                    tasks.get(i).fail(e.getCause());
+                }
+            }
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    private void prepare(Task task, Map<Bundle, Task> targets, Map<String, Task> symbolicNames) {
+
+        try (final var jar = new JarFile(task.artifact.getFile())) {
+
+            final var manifest = jar.getManifest();
+            final var symbolicName = manifest == null ? null :
+                    manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME);
+
+            if (symbolicName == null) {
+
+                task.fail(new BundleException("The artifact " + task.coordinates + " is not a bundle"));
+                return;
+            }
+
+            // the header may carry directives, e.g. singleton:=true
+            task.symbolicName = symbolicName.split(";", 2)[0].trim();
+
+            final var other = symbolicNames.putIfAbsent(task.symbolicName, task);
+
+            // otherwise the later artifact would silently replace the earlier one of the batch
+            if (other != null) {
+
+                task.fail(new BundleException("The artifacts " + other.coordinates + " and " + task.coordinates +
+                        " provide the same bundle " + task.symbolicName));
+                return;
+            }
+
+            final var version = Version.parseVersion(manifest.getMainAttributes().getValue(Constants.BUNDLE_VERSION));
+            Bundle existing = null;
+
+            for (final var bundle : bundleContext.getBundles()) {
+
+                if (bundle.getBundleId() == 0 || !task.symbolicName.equals(bundle.getSymbolicName()))
+                    continue;
+
+                // several installed versions are possible, the one with the requested version is preferred
+                if (existing == null || bundle.getVersion().equals(version))
+                    existing = bundle;
+            }
+
+            if (existing == null)
+                return;
+
+            task.bundle = existing;
+
+            // a release is immutable, whereas a snapshot may have been rebuilt under the same version
+            if (existing.getVersion().equals(version) && !task.artifact.isSnapshot())
+                task.status = BundleUpdateReport.Status.UNCHANGED;
+            else
+                targets.put(existing, task);
+
+        } catch (IOException | IllegalArgumentException e) {
+
+            task.fail(e);
+        }
+    }
+
+    private void apply(Task task, Bundle bundle, List<Bundle> updated) {
+
+        try (final var stream = Files.newInputStream(task.artifact.getFile().toPath())) {
+
+            bundle.update(stream);
+            updated.add(bundle);
+            task.status = BundleUpdateReport.Status.UPDATED;
+
+            logger.info("Updated bundle {} from {}", bundle, task.coordinates);
+
+        } catch (BundleException | IOException e) {
+
+            task.fail(e);
+        }
+    }
+
+    private void install(Task task, List<Bundle> installed) {
+
+        try {
+
+            task.bundle = bundleContext.installBundle(bundleLocations.toLocation(task.artifact));
+            task.status = BundleUpdateReport.Status.INSTALLED;
+            installed.add(task.bundle);
+
+            logger.info("Installed bundle {} from {}", task.bundle, task.coordinates);
+
+        } catch (BundleException | RuntimeException e) {
+
+            task.fail(e);
+        }
+    }
+
+    private void start(List<Bundle> bundles, List<Task> tasks) {
+
+        final var owners = new HashMap<Bundle, Task>();
+
+        for (final var task : tasks)
+            if (task.bundle != null)
+                owners.put(task.bundle, task);
+
+        for (final var layer : BundleGraph.of(bundles).getLayers())
+            for (final var bundle : layer) {
+
+                try {
+
+                    bundleScheduler.start(Collections.singletonList(bundle));
+
+                } catch (UncheckedBundleException e) {
+
+                    final var task = owners.get(bundle);
+
+                    if (task != null)
+                        task.fail(e);
+                    else
+                        logger.warn("Cannot restart bundle {} after update", bundle, e);
+                }
+            }
+    }
+
+    private static final class Task {
+
+        private final String coordinates;
+        private Artifact artifact;
+        private String symbolicName;
+        private Bundle bundle;
+        private BundleUpdateReport.Status status;
+        private Exception error;
+
+        private Task(String coordinates) {
+
+            this.coordinates = coordinates;
+        }
+
+        private void fail(Throwable cause) {
+
+            status = BundleUpdateReport.Status.FAILED;
+            error = cause instanceof Exception ? (Exception) cause : new Exception(cause);
+        }
+
+        private BundleUpdateReport.Outcome toOutcome() {
+
+            return new BundleUpdateReport.Outcome(
+                    coordinates,
+                    symbolicName,
+                    bundle == null ? -1 : bundle.getBundleId(),
+                    status,
+                    error);
+        }
+    }
+}
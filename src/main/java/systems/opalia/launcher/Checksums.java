@@ -0,0 +1,76 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+final class Checksums {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Checksums() {
+    }
+
+    static String sha256(Path file)
+            throws IOException {
+
+        return digest(file, "SHA-256");
+    }
+
+    static String sha256(byte[] bytes) {
+
+        final var digest = newMessageDigest("SHA-256");
+
+        return toHex(digest.digest(bytes));
+    }
+
+    static String digest(Path file, String algorithm)
+            throws IOException {
+
+        final var digest = newMessageDigest(algorithm);
+
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            final var buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+            while (channel.read(buffer) != -1) {
+
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newMessageDigest(String algorithm) {
+
+        try {
+
+            return MessageDigest.getInstance(algorithm);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            throw new IllegalArgumentException("Unsupported digest algorithm " + algorithm, e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+
+        final var chars = new char[bytes.length * 2];
+
+        for (var i = 0; i < bytes.length; i++) {
+
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+}
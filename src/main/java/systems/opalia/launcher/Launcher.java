@@ -3,27 +3,32 @@ package systems.opalia.launcher;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.management.ManagementFactory;
-import java.net.JarURLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.felix.main.AutoProcessor;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.LoggerContext;
-import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.Artifact;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkEvent;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.framework.wiring.FrameworkWiring;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import systems.opalia.launcher.exception.UncheckedBundleException;
+import systems.opalia.launcher.logging.AsyncLogDispatcher;
 import systems.opalia.launcher.logging.LoggerFactoryImpl;
+import systems.opalia.launcher.metrics.BundleMetrics;
+import systems.opalia.launcher.metrics.LoggingMetrics;
+import systems.opalia.launcher.metrics.MetricsRegistry;
+import systems.opalia.launcher.transport.Http2TransporterFactory;
 
 
 public final class Launcher {
@@ -35,41 +40,131 @@ public final class Launcher {
     public static final String PROPERTY_AUTO_SHUTDOWN = "launcher.auto-shutdown";
     public static final String PROPERTY_AUTO_DEPLOYMENT = "launcher.auto-deployment";
     public static final String PROPERTY_AUTO_DEPLOYMENT_DIRECTORY = "launcher.auto-deployment-directory";
+    public static final String PROPERTY_AUTO_DEPLOYMENT_WATCH = "launcher.auto-deployment-watch";
+    public static final String PROPERTY_AUTO_DEPLOYMENT_DEBOUNCE = "launcher.auto-deployment-debounce";
     public static final String PROPERTY_CACHE_DIRECTORY = "launcher.cache-directory";
+    public static final String PROPERTY_STATE_DIRECTORY = "launcher.state-directory";
     public static final String PROPERTY_PID_FILE = "launcher.pid-file";
     public static final String PROPERTY_EXTRA_EXPORT_PACKAGES = "launcher.extra-export-packages";
     public static final String PROPERTY_BUNDLE_ARTIFACTS = "launcher.bundle-artifacts";
+    public static final String PROPERTY_BUNDLE_RESOLUTION = "launcher.bundle-resolution";
     public static final String PROPERTY_REMOTE_REPOSITORIES = "launcher.remote-repositories";
     public static final String PROPERTY_LOCAL_REPOSITORY = "launcher.local-repository";
+    public static final String PROPERTY_RESOLVER_THREADS = "launcher.resolver-threads";
+    public static final String PROPERTY_ARTIFACT_STORE = "launcher.artifact-store";
+    public static final String PROPERTY_HTTP_TRANSPORT = "launcher.http-transport";
+    public static final String PROPERTY_REPOSITORY_SELECTION = "launcher.repository-selection";
+    public static final String PROPERTY_LOCK_FILE = "launcher.lock-file";
+    public static final String PROPERTY_LOCK_MODE = "launcher.lock-mode";
+    public static final String PROPERTY_INSTALL_MODE = "launcher.install-mode";
+    public static final String PROPERTY_WARM_RESTART = "launcher.warm-restart";
+    public static final String PROPERTY_PARALLEL_START = "launcher.parallel-start";
+    public static final String PROPERTY_LIFECYCLE_THREADS = "launcher.lifecycle-threads";
+    public static final String PROPERTY_PARALLEL_STOP = "launcher.parallel-stop";
+    public static final String PROPERTY_BUNDLE_STOP_TIMEOUT = "launcher.bundle-stop-timeout";
+    public static final String PROPERTY_SHUTDOWN_TIMEOUT = "launcher.shutdown-timeout";
+    public static final String PROPERTY_SERVICE_TRACKING = "launcher.service-tracking";
     public static final String PROPERTY_PROVIDE_LOGGING_SERVICE = "launcher.provide-service.logging";
-
+    public static final String PROPERTY_LOGGING_SERVICE_ASYNC = "launcher.logging-service.async";
+    public static final String PROPERTY_LOGGING_SERVICE_BUFFER_SIZE = "launcher.logging-service.buffer-size";
+    public static final String PROPERTY_LOGGING_SERVICE_BATCH_SIZE = "launcher.logging-service.batch-size";
+    public static final String PROPERTY_LOGGING_SERVICE_WAIT_STRATEGY = "launcher.logging-service.wait-strategy";
+    public static final String PROPERTY_LOGGING_SERVICE_DROP_POLICY = "launcher.logging-service.drop-policy";
+    public static final String PROPERTY_BOOT_PROFILE_FILE = "launcher.boot-profile-file";
+    public static final String PROPERTY_BOOT_PROFILE_FORMAT = "launcher.boot-profile-format";
+    public static final String PROPERTY_METRICS_JMX = "launcher.metrics.jmx";
+
+    private final BootProfiler bootProfiler;
     private final Logger logger;
     private final Framework framework;
     private final ServiceHandler serviceHandler;
     private final ArtifactResolver artifactResolver;
+    private final BundleArtifacts bundleArtifacts;
+    private final ManagedBundles managedBundles;
+    private final BundleScheduler bundleScheduler;
+    private final BundleMetrics bundleMetrics;
+    private final LoggingMetrics loggingMetrics;
+    private final MetricsRegistry metricsRegistry;
     private final List<Bundle> bundles;
+    private AsyncLogDispatcher logDispatcher;
+    private LoggerFactoryImpl loggerFactory;
+    private AutoDeployer autoDeployer;
 
     public Launcher() {
 
-        initLogging();
+        bootProfiler = new BootProfiler();
+
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "init-logging")) {
+
+            initLogging();
+        }
 
         logger = LoggerFactory.getLogger(Launcher.class);
-        framework = getFramework();
+        artifactResolver = newArtifactResolver();
+        bundleArtifacts = newBundleArtifacts(artifactResolver);
+        managedBundles = new ManagedBundles(getStateDirectory().resolve("managed-bundles.properties"));
+
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "create-framework")) {
+
+            framework = getFramework();
+        }
 
         logMetadata();
 
-        bootFramework();
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "boot-framework")) {
+
+            bootFramework();
+        }
 
-        serviceHandler = new ServiceHandler(framework.getBundleContext());
-        artifactResolver = new ArtifactResolver(getRemoteRepositories(), getLocalRepository());
+        serviceHandler = new ServiceHandler(framework.getBundleContext(), getServiceTrackingFlag());
+        bundleMetrics = new BundleMetrics(framework.getBundleContext());
+        loggingMetrics = new LoggingMetrics();
+        metricsRegistry = new MetricsRegistry();
+        bundleScheduler = new BundleScheduler(getLifecycleThreads(), bootProfiler, bundleMetrics);
         bundles = new ArrayList<>();
 
+        if (getMetricsJmxFlag())
+            registerMetrics();
+
         if (getAutoShutdownFlag())
             Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
 
         logger.info("The application is ready for setup");
     }
 
+    public static void prefetch() {
+
+        // a prefetch only needs the artifact resolver, the framework is never created
+        final var bootProfiler = new BootProfiler();
+
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "init-logging")) {
+
+            initLogging();
+        }
+
+        final var logger = LoggerFactory.getLogger(Launcher.class);
+        final List<Artifact> artifacts;
+
+        try (final var artifactResolver = newArtifactResolver();
+             final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "resolve")) {
+
+            artifacts = newBundleArtifacts(artifactResolver).resolve();
+        }
+
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "verify")) {
+
+            BundleArtifacts.verifyChecksums(artifacts);
+        }
+
+        logger.info("The bundle artifacts have been prefetched into {}", getLocalRepository());
+
+        logBootProfile(logger, bootProfiler);
+        getBootProfileFile().ifPresent(x -> writeBootProfile(logger, bootProfiler, x));
+
+        if (getAutoShutdownFlag())
+            LogManager.shutdown();
+    }
+
     public void setup() {
 
         setup(false);
@@ -81,39 +176,96 @@ public final class Launcher {
 
             logger.debug("Start logging service");
 
-            getServiceManager().registerService(org.osgi.service.log.LoggerFactory.class, new LoggerFactoryImpl());
+            try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "logging-service")) {
+
+                if (getLoggingServiceAsyncFlag())
+                    logDispatcher = new AsyncLogDispatcher(
+                            getLoggingServiceBufferSize(),
+                            getLoggingServiceBatchSize(),
+                            getLoggingServiceWaitStrategy(),
+                            getLoggingServiceDropPolicy());
+
+                loggerFactory = new LoggerFactoryImpl(logDispatcher, loggingMetrics);
+
+                framework.getBundleContext().addBundleListener(loggerFactory);
+                getServiceManager().registerService(org.osgi.service.log.LoggerFactory.class, loggerFactory);
+            }
         }
 
-        logger.debug("Resolve bundle artifacts");
+        final List<Artifact> artifacts;
 
-        final var artifacts =
-                getBundleArtifacts().stream()
-                        .map(DefaultArtifact::new)
-                        .map(artifactResolver::resolve)
-                        .collect(Collectors.toList());
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "resolve")) {
 
-        try {
+            artifacts = bundleArtifacts.resolve();
+        }
+
+        try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "install")) {
 
             logger.debug("Start bundle installation");
 
-            for (final var artifact : artifacts)
-                bundles.add(framework.getBundleContext()
-                        .installBundle("file://" + artifact.getFile().getAbsolutePath()));
+            final var bundleLocations =
+                    new BundleLocations(getInstallMode(), getCacheDirectory().resolve("launcher-bundles"));
+            if (isFrameworkCacheKept()) {
 
-            if (!dryRun) {
+                // bundles kept in a warm cache are reused, only the differences are installed
+                bundles.addAll(managedBundles.synchronize(framework.getBundleContext(), artifacts, bundleLocations,
+                        bootProfiler));
 
-                logger.debug("Trigger start for each bundle");
+            } else {
 
-                for (final var bundle : bundles)
-                    bundle.start();
+                // the state of an earlier warm cache does not describe the freshly cleaned one
+                managedBundles.clear();
 
-                logger.info("The application has been setup");
+                for (final var artifact : artifacts)
+                    try (final var bundleSpan = bootProfiler.begin(BootProfiler.CATEGORY_BUNDLE_INSTALL,
+                            artifact.toString())) {
+
+                        bundles.add(framework.getBundleContext()
+                                .installBundle(bundleLocations.toLocation(artifact)));
+                    }
             }
 
         } catch (BundleException e) {
 
             throw new UncheckedBundleException(e);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        if (!dryRun) {
+
+            try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "start")) {
+
+                if (getParallelStartFlag()) {
+
+                    logger.debug("Trigger parallel start along the bundle wiring");
+
+                    framework.adapt(FrameworkWiring.class).resolveBundles(bundles);
+                    bundleScheduler.startParallel(BundleGraph.of(bundles));
+
+                } else {
+
+                    logger.debug("Trigger start for each bundle");
+
+                    bundleScheduler.start(bundles);
+                }
+            }
+
+            if (getAutoDeploymentFlag() && getAutoDeploymentWatchFlag()) {
+
+                logger.debug("Watch auto-deployment directory");
+
+                autoDeployer = new AutoDeployer(framework.getBundleContext(), getAutoDeploymentDirectory(),
+                        getAutoDeploymentDebounce());
+            }
+
+            logger.info("The application has been setup");
         }
+
+        logBootProfile(logger, bootProfiler);
+        getBootProfileFile().ifPresent(x -> writeBootProfile(logger, bootProfiler, x));
     }
 
     public void shutdown() {
@@ -122,18 +274,42 @@ public final class Launcher {
 
             logger.debug("Perform application shutdown");
 
-            Collections.reverse(bundles);
+            final var deadline = System.nanoTime() + getShutdownTimeout() * 1_000_000;
+
+            if (autoDeployer != null)
+                autoDeployer.close();
+
+            final var layers = new ArrayList<List<Bundle>>();
+
+            if (getParallelStopFlag()) {
+
+                // consumers are stopped before the bundles they are wired to
+                layers.addAll(BundleGraph.of(bundles).getLayers());
+
+            } else {
 
-            for (final var bundle : bundles)
-                bundle.stop();
+                for (final var bundle : bundles)
+                    layers.add(Collections.singletonList(bundle));
+            }
+
+            Collections.reverse(layers);
+
+            bundleScheduler.stop(layers, getBundleStopTimeout(), deadline);
 
             serviceHandler.unregisterServices();
             serviceHandler.ungetServices();
 
+            if (loggerFactory != null)
+                framework.getBundleContext().removeBundleListener(loggerFactory);
+
             framework.stop();
-            framework.waitForStop(0);
 
-            logger.info("The OSGi framework has been shutdown gracefully");
+            final var event = framework.waitForStop(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+
+            if (event.getType() == FrameworkEvent.WAIT_TIMEDOUT)
+                logger.warn("The OSGi framework did not stop within the shutdown timeout");
+            else
+                logger.info("The OSGi framework has been shutdown gracefully");
 
         } catch (InterruptedException e) {
 
@@ -152,6 +328,17 @@ public final class Launcher {
 
         } finally {
 
+            if (logDispatcher != null) {
+
+                logDispatcher.close();
+
+                if (logDispatcher.getDroppedEvents() > 0)
+                    logger.warn("The logging service dropped {} events", logDispatcher.getDroppedEvents());
+            }
+
+            artifactResolver.close();
+            metricsRegistry.unregisterAll();
+
             logger.debug("The application has been shutdown");
 
             if (getAutoShutdownFlag())
@@ -159,6 +346,34 @@ public final class Launcher {
         }
     }
 
+    public synchronized BundleUpdateReport updateBundles(Collection<String> coordinates) {
+
+        logger.debug("Update {} bundle artifacts", coordinates.size());
+
+        final var bundleUpdater = new BundleUpdater(
+                framework.getBundleContext(),
+                artifactResolver,
+                bundleScheduler,
+                new BundleLocations(getInstallMode(), getCacheDirectory().resolve("launcher-bundles")),
+                managedBundles,
+                getResolverThreads());
+
+        final var report = bundleUpdater.update(coordinates,
+                getBundleStopTimeout(),
+                System.nanoTime() + getShutdownTimeout() * 1_000_000);
+
+        // new bundles are stopped at shutdown like the configured ones
+        for (final var outcome : report.getOutcomes(BundleUpdateReport.Status.INSTALLED))
+            bundles.add(framework.getBundleContext().getBundle(outcome.getBundleId()));
+
+        if (report.isSuccessful())
+            logger.info("The bundles have been updated");
+        else
+            logger.warn("Some bundles could not be updated:{}{}", System.lineSeparator(), report);
+
+        return report;
+    }
+
     public ServiceHandler.ServiceManager getServiceManager() {
 
         return serviceHandler.getServiceManager();
@@ -169,6 +384,68 @@ public final class Launcher {
         return artifactResolver;
     }
 
+    public BootProfiler getBootProfiler() {
+
+        return bootProfiler;
+    }
+
+    private void registerMetrics() {
+
+        logger.debug("Register metrics as MBeans in domain {}", MetricsRegistry.DOMAIN);
+
+        metricsRegistry.register("Resolver", artifactResolver.getMetrics());
+        metricsRegistry.register("Bundles", bundleMetrics);
+        metricsRegistry.register("Services", serviceHandler.getMetrics());
+        metricsRegistry.register("Logging", loggingMetrics);
+    }
+
+    private static void logBootProfile(Logger logger, BootProfiler bootProfiler) {
+
+        for (final var entry : bootProfiler.getEntries(BootProfiler.CATEGORY_PHASE))
+            logger.debug("Boot phase {} took {} ms (CPU time {} ms, {} KiB allocated)",
+                    entry.getName(),
+                    entry.getWallNanos() / 1_000_000,
+                    entry.getCpuNanos() / 1_000_000,
+                    entry.getAllocatedBytes() / 1024);
+    }
+
+    private static void writeBootProfile(Logger logger, BootProfiler bootProfiler, Path file) {
+
+        try {
+
+            bootProfiler.write(file, getBootProfileFormat());
+
+            logger.debug("Boot profile written to {}", file);
+
+        } catch (UncheckedIOException e) {
+
+            logger.warn("Cannot write boot profile to {}", file, e);
+        }
+    }
+
+    private static ArtifactResolver newArtifactResolver() {
+
+        final var httpTransporterFactory =
+                getHttpTransport() == HttpTransport.JDK ? new Http2TransporterFactory() : null;
+
+        return new ArtifactResolver.Builder(getRemoteRepositories(), getLocalRepository())
+                .setThreads(getResolverThreads())
+                .setArtifactStore(getArtifactStore().orElse(null))
+                .setHttpTransporterFactory(httpTransporterFactory)
+                .setRepositorySelection(getRepositorySelection())
+                .build();
+    }
+
+    private static BundleArtifacts newBundleArtifacts(ArtifactResolver artifactResolver) {
+
+        return new BundleArtifacts(
+                artifactResolver,
+                getBundleArtifacts(),
+                getBundleResolution(),
+                new LockFile(getLockFile()),
+                getLockMode());
+    }
+
     private Framework getFramework() {
 
         final var serviceLoader = ServiceLoader.load(FrameworkFactory.class);
@@ -186,16 +463,42 @@ public final class Launcher {
         if (System.getProperty(Constants.FRAMEWORK_STORAGE) == null)
             System.setProperty(Constants.FRAMEWORK_STORAGE, getCacheDirectory().toString());
 
-        if (System.getProperty(Constants.FRAMEWORK_STORAGE_CLEAN) == null)
+        if (System.getProperty(Constants.FRAMEWORK_STORAGE_CLEAN) == null && !getWarmRestartFlag())
             System.setProperty(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
 
         if (System.getProperty(Constants.FRAMEWORK_SYSTEMPACKAGES_EXTRA) == null)
-            System.setProperty(Constants.FRAMEWORK_SYSTEMPACKAGES_EXTRA,
-                    String.join(",", transformExports(getExtraExportPackages())));
+            System.setProperty(Constants.FRAMEWORK_SYSTEMPACKAGES_EXTRA, getSystemPackagesExtra());
 
         return frameworkFactory.newFramework(getPropertyMap());
     }
 
+    private String getSystemPackagesExtra() {
+
+        final var extraExportPackages = getExtraExportPackages();
+
+        if (extraExportPackages.isEmpty())
+            return "";
+
+        final var cache = new SystemPackagesCache(getStateDirectory().resolve("system-packages.properties"));
+        final var key = SystemPackagesCache.computeKey(extraExportPackages, this.getClass().getClassLoader());
+        final var cached = cache.get(key);
+
+        if (cached.isPresent()) {
+
+            logger.debug("Take extra system packages from cache");
+
+            return cached.get();
+        }
+
+        logger.debug("Scan classpath for extra system packages");
+
+        final var value = String.join(",", transformExports(extraExportPackages));
+
+        cache.put(key, value);
+
+        return value;
+    }
+
     private void bootFramework() {
 
         try {
@@ -218,8 +521,11 @@ public final class Launcher {
 
             if (getAutoDeploymentFlag()) {
 
-                Files.createDirectories(getAutoDeploymentDirectory());
-                AutoProcessor.process(getPropertyMap(), framework.getBundleContext());
+                try (final var span = bootProfiler.begin(BootProfiler.CATEGORY_PHASE, "auto-deployment")) {
+
+                    Files.createDirectories(getAutoDeploymentDirectory());
+                    AutoProcessor.process(getPropertyMap(), framework.getBundleContext());
+                }
             }
 
             framework.start();
@@ -236,6 +542,12 @@ public final class Launcher {
         }
     }
 
+    private static boolean isFrameworkCacheKept() {
+
+        return !Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT.equals(
+                System.getProperty(Constants.FRAMEWORK_STORAGE_CLEAN));
+    }
+
     private Map<String, String> getPropertyMap() {
 
         final var config = new HashMap<String, String>();
@@ -281,15 +593,15 @@ public final class Launcher {
         logger.debug("Maximum heap memory: {}", heapMax);
     }
 
-    private void initLogging() {
+    private static void initLogging() {
 
         if (getAutoShutdownFlag())
             System.setProperty("log4j.shutdownHookEnabled", "false");
 
-        getRootLogLevel().ifPresent(this::setRootLogLevel);
+        getRootLogLevel().ifPresent(Launcher::setRootLogLevel);
     }
 
-    private void setRootLogLevel(Level logLevel) {
+    private static void setRootLogLevel(Level logLevel) {
 
         final var context = (LoggerContext) LogManager.getContext(false);
         final var config = context.getConfiguration();
@@ -298,7 +610,7 @@ public final class Launcher {
         context.updateLoggers();
     }
 
-    private Optional<Level> getRootLogLevel() {
+    private static Optional<Level> getRootLogLevel() {
 
         final var value = System.getProperty(PROPERTY_FORCED_ROOT_LOG_LEVEL);
 
@@ -313,7 +625,7 @@ public final class Launcher {
         return Optional.of(logLevel);
     }
 
-    private boolean getAutoShutdownFlag() {
+    private static boolean getAutoShutdownFlag() {
 
         final var value = System.getProperty(PROPERTY_AUTO_SHUTDOWN);
 
@@ -323,7 +635,7 @@ public final class Launcher {
         return Boolean.parseBoolean(value);
     }
 
-    private boolean getAutoDeploymentFlag() {
+    private static boolean getAutoDeploymentFlag() {
 
         final var value = System.getProperty(PROPERTY_AUTO_DEPLOYMENT);
 
@@ -333,7 +645,7 @@ public final class Launcher {
         return Boolean.parseBoolean(value);
     }
 
-    private Path getAutoDeploymentDirectory() {
+    private static Path getAutoDeploymentDirectory() {
 
         final var value = System.getProperty(PROPERTY_AUTO_DEPLOYMENT_DIRECTORY);
 
@@ -343,7 +655,27 @@ public final class Launcher {
         return Paths.get(value).toAbsolutePath().normalize();
     }
 
-    private Path getCacheDirectory() {
+    private static boolean getAutoDeploymentWatchFlag() {
+
+        final var value = System.getProperty(PROPERTY_AUTO_DEPLOYMENT_WATCH);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static long getAutoDeploymentDebounce() {
+
+        final var value = System.getProperty(PROPERTY_AUTO_DEPLOYMENT_DEBOUNCE);
+
+        if (value == null || value.isEmpty())
+            return 1000; // default value
+
+        return Long.parseLong(value);
+    }
+
+    private static Path getCacheDirectory() {
 
         final var value = System.getProperty(PROPERTY_CACHE_DIRECTORY);
 
@@ -353,7 +685,17 @@ public final class Launcher {
         return Paths.get(value).toAbsolutePath().normalize();
     }
 
-    private Path getPidFile() {
+    private static Path getStateDirectory() {
+
+        final var value = System.getProperty(PROPERTY_STATE_DIRECTORY);
+
+        if (value == null || value.isEmpty())
+            return Paths.get("./tmp/launcher-state").toAbsolutePath().normalize(); // default value
+
+        return Paths.get(value).toAbsolutePath().normalize();
+    }
+
+    private static Path getPidFile() {
 
         final var value = System.getProperty(PROPERTY_PID_FILE);
 
@@ -363,7 +705,7 @@ public final class Launcher {
         return Paths.get(value).toAbsolutePath().normalize();
     }
 
-    private List<String> getExtraExportPackages() {
+    private static List<String> getExtraExportPackages() {
 
         final var value = System.getProperty(PROPERTY_EXTRA_EXPORT_PACKAGES);
 
@@ -382,7 +724,7 @@ public final class Launcher {
                 .collect(Collectors.toList());
     }
 
-    private List<String> getBundleArtifacts() {
+    private static List<String> getBundleArtifacts() {
 
         final var value = System.getProperty(PROPERTY_BUNDLE_ARTIFACTS);
 
@@ -396,7 +738,24 @@ public final class Launcher {
                 .collect(Collectors.toList());
     }
 
-    private LinkedHashMap<String, String> getRemoteRepositories() {
+    private static BundleArtifacts.Resolution getBundleResolution() {
+
+        final var value = System.getProperty(PROPERTY_BUNDLE_RESOLUTION);
+
+        if (value == null || value.isEmpty())
+            return BundleArtifacts.Resolution.DIRECT; // default value
+
+        try {
+
+            return BundleArtifacts.Resolution.valueOf(value.toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+
+            throw new IllegalArgumentException("Incorrect bundle resolution " + value);
+        }
+    }
+
+    private static LinkedHashMap<String, String> getRemoteRepositories() {
 
         final var repositories = new LinkedHashMap<String, String>();
         final var value = System.getProperty(PROPERTY_REMOTE_REPOSITORIES);
@@ -428,7 +787,7 @@ public final class Launcher {
         return repositories;
     }
 
-    private String getLocalRepository() {
+    private static String getLocalRepository() {
 
         final var value = System.getProperty(PROPERTY_LOCAL_REPOSITORY);
 
@@ -438,131 +797,307 @@ public final class Launcher {
         return value;
     }
 
-    private boolean getLoggingServiceFlag() {
+    private static int getResolverThreads() {
 
-        final var value = System.getProperty(PROPERTY_PROVIDE_LOGGING_SERVICE);
+        final var value = System.getProperty(PROPERTY_RESOLVER_THREADS);
 
         if (value == null || value.isEmpty())
-            return false; // default value
+            return 8; // default value
 
-        return Boolean.parseBoolean(value);
+        return Integer.parseInt(value);
     }
 
-    private void createPidFile(Path file)
-            throws IOException {
+    private static Optional<Path> getArtifactStore() {
 
-        Files.createDirectories(file.getParent());
+        final var value = System.getProperty(PROPERTY_ARTIFACT_STORE);
 
-        try (final var writer = Files.newBufferedWriter(file)) {
+        if (value == null || value.isEmpty())
+            return Optional.empty(); // default value
 
-            writer.write(String.valueOf(ProcessHandle.current().pid()));
+        return Optional.of(Paths.get(value).toAbsolutePath().normalize());
+    }
+
+    private static HttpTransport getHttpTransport() {
+
+        final var value = System.getProperty(PROPERTY_HTTP_TRANSPORT);
+
+        if (value == null || value.isEmpty())
+            return HttpTransport.APACHE; // default value
+
+        try {
+
+            return HttpTransport.valueOf(value.toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+
+            throw new IllegalArgumentException("Incorrect HTTP transport " + value);
         }
+    }
 
-        file.toFile().deleteOnExit();
+    private static ArtifactResolver.RepositorySelection getRepositorySelection() {
+
+        final var value = System.getProperty(PROPERTY_REPOSITORY_SELECTION);
+
+        if (value == null || value.isEmpty())
+            return ArtifactResolver.RepositorySelection.CONFIGURED; // default value
+
+        try {
+
+            return ArtifactResolver.RepositorySelection.valueOf(value.toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+
+            throw new IllegalArgumentException("Incorrect repository selection " + value);
+        }
     }
 
-    private List<String> transformExports(List<String> extraExportPackages) {
+    private static Path getLockFile() {
 
-        final var results = new ArrayList<String>();
+        final var value = System.getProperty(PROPERTY_LOCK_FILE);
 
-        for (final var extraExportPackage : extraExportPackages) {
+        if (value == null || value.isEmpty())
+            return Paths.get("./tmp/bundles.lock").toAbsolutePath().normalize(); // default value
 
-            final var packageEntries = listPackages(extraExportPackage);
+        return Paths.get(value).toAbsolutePath().normalize();
+    }
 
-            for (final var packageEntry : packageEntries) {
+    private static LockFile.Mode getLockMode() {
 
-                final var bundleVersion = packageEntry.getValue().get("Bundle-Version");
-                final var specVersion = packageEntry.getValue().get("Specification-Version");
-                final var builder = new StringBuilder();
+        final var value = System.getProperty(PROPERTY_LOCK_MODE);
 
-                builder.append(packageEntry.getKey());
-                builder.append(";version=\"");
+        if (value == null || value.isEmpty())
+            return LockFile.Mode.NONE; // default value
 
-                if (bundleVersion != null)
-                    extractSemver(builder, bundleVersion);
-                else if (specVersion != null)
-                    extractSemver(builder, specVersion);
-                else
-                    throw new IllegalArgumentException("Cannot get version of package " + packageEntry.getKey());
+        try {
 
-                builder.append("\"");
+            return LockFile.Mode.valueOf(value.toUpperCase());
 
-                final var result = builder.toString();
+        } catch (IllegalArgumentException e) {
 
-                if (!results.contains(result))
-                    results.add(result);
-            }
+            throw new IllegalArgumentException("Incorrect lock mode " + value);
+        }
+    }
+
+    private static BundleLocations.Mode getInstallMode() {
+
+        final var value = System.getProperty(PROPERTY_INSTALL_MODE);
+
+        if (value == null || value.isEmpty())
+            return BundleLocations.Mode.COPY; // default value
+
+        try {
+
+            return BundleLocations.Mode.valueOf(value.toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+
+            throw new IllegalArgumentException("Incorrect install mode " + value);
         }
+    }
+
+    private static boolean getWarmRestartFlag() {
+
+        final var value = System.getProperty(PROPERTY_WARM_RESTART);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static boolean getParallelStartFlag() {
+
+        final var value = System.getProperty(PROPERTY_PARALLEL_START);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static int getLifecycleThreads() {
+
+        final var value = System.getProperty(PROPERTY_LIFECYCLE_THREADS);
+
+        if (value == null || value.isEmpty())
+            return Runtime.getRuntime().availableProcessors(); // default value
+
+        return Integer.parseInt(value);
+    }
+
+    private static boolean getParallelStopFlag() {
+
+        final var value = System.getProperty(PROPERTY_PARALLEL_STOP);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static long getBundleStopTimeout() {
+
+        final var value = System.getProperty(PROPERTY_BUNDLE_STOP_TIMEOUT);
+
+        if (value == null || value.isEmpty())
+            return 10000; // default value
+
+        return Long.parseLong(value);
+    }
+
+    private static long getShutdownTimeout() {
+
+        final var value = System.getProperty(PROPERTY_SHUTDOWN_TIMEOUT);
+
+        if (value == null || value.isEmpty())
+            return 25000; // default value
 
-        return results;
+        return Long.parseLong(value);
     }
 
-    private void extractSemver(StringBuilder builder, String value) {
+    private static boolean getServiceTrackingFlag() {
 
-        final var p1 = "^(\\d+)\\.(\\d+)\\.(\\d+)([-.].+)?$"; // semver extraction
-        final var p2 = "^0+(?!$)"; // remove leading zero
-        final var matcher = Pattern.compile(p1).matcher(value);
+        final var value = System.getProperty(PROPERTY_SERVICE_TRACKING);
 
-        if (!matcher.matches())
-            throw new IllegalArgumentException("Unexpected version format");
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static boolean getLoggingServiceFlag() {
+
+        final var value = System.getProperty(PROPERTY_PROVIDE_LOGGING_SERVICE);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static boolean getLoggingServiceAsyncFlag() {
+
+        final var value = System.getProperty(PROPERTY_LOGGING_SERVICE_ASYNC);
+
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static int getLoggingServiceBufferSize() {
+
+        final var value = System.getProperty(PROPERTY_LOGGING_SERVICE_BUFFER_SIZE);
 
-        final var major = matcher.group(1).replaceFirst(p2, "");
-        final var minor = matcher.group(2).replaceFirst(p2, "");
-        final var patch = matcher.group(3).replaceFirst(p2, "");
+        if (value == null || value.isEmpty())
+            return 8192; // default value
 
-        builder.append(major);
-        builder.append('.');
-        builder.append(minor);
-        builder.append('.');
-        builder.append(patch);
+        return Integer.parseInt(value);
     }
 
-    private List<Map.Entry<String, Map<String, String>>> listPackages(String packageName) {
+    private static int getLoggingServiceBatchSize() {
+
+        final var value = System.getProperty(PROPERTY_LOGGING_SERVICE_BATCH_SIZE);
 
-        final var transitive = packageName.endsWith(".*");
-        final var name = transitive ? packageName.substring(0, packageName.length() - 2) : packageName;
-        final var results = new ArrayList<Map.Entry<String, Map<String, String>>>();
+        if (value == null || value.isEmpty())
+            return 256; // default value
+
+        return Integer.parseInt(value);
+    }
+
+    private static AsyncLogDispatcher.WaitStrategy getLoggingServiceWaitStrategy() {
+
+        final var value = System.getProperty(PROPERTY_LOGGING_SERVICE_WAIT_STRATEGY);
+
+        if (value == null || value.isEmpty())
+            return AsyncLogDispatcher.WaitStrategy.BLOCKING; // default value
 
         try {
 
-            final var urls = this.getClass().getClassLoader().getResources(name.replace('.', '/'));
+            return AsyncLogDispatcher.WaitStrategy.valueOf(value.toUpperCase().replace('-', '_'));
 
-            while (urls.hasMoreElements()) {
+        } catch (IllegalArgumentException e) {
 
-                final var url = urls.nextElement();
+            throw new IllegalArgumentException("Incorrect wait strategy " + value);
+        }
+    }
 
-                if (!url.getProtocol().equals("jar"))
-                    throw new IllegalArgumentException("Cannot handle URI scheme " + url.getProtocol());
+    private static AsyncLogDispatcher.DropPolicy getLoggingServiceDropPolicy() {
 
-                final var connection = (JarURLConnection) url.openConnection();
-                final var file = connection.getJarFile();
-                final var entries = file.entries();
-                final var attributes = new HashMap<String, String>();
+        final var value = System.getProperty(PROPERTY_LOGGING_SERVICE_DROP_POLICY);
 
-                for (final var attribute : file.getManifest().getMainAttributes().entrySet())
-                    attributes.put(attribute.getKey().toString(), attribute.getValue().toString());
+        if (value == null || value.isEmpty())
+            return AsyncLogDispatcher.DropPolicy.BLOCK; // default value
 
-                while (entries.hasMoreElements()) {
+        try {
 
-                    final var entry = entries.nextElement();
+            return AsyncLogDispatcher.DropPolicy.valueOf(value.toUpperCase());
 
-                    if (entry.getName().startsWith(connection.getEntryName() + "/") && entry.getName().endsWith("/")) {
+        } catch (IllegalArgumentException e) {
 
-                        final var key = entry.getName().substring(0, entry.getName().length() - 1).replace('/', '.');
+            throw new IllegalArgumentException("Incorrect drop policy " + value);
+        }
+    }
 
-                        results.add(Map.entry(key, attributes));
-                    }
-                }
-            }
+    private static boolean getMetricsJmxFlag() {
 
-        } catch (IOException e) {
+        final var value = System.getProperty(PROPERTY_METRICS_JMX);
 
-            throw new UncheckedIOException(e);
+        if (value == null || value.isEmpty())
+            return false; // default value
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static Optional<Path> getBootProfileFile() {
+
+        final var value = System.getProperty(PROPERTY_BOOT_PROFILE_FILE);
+
+        if (value == null || value.isEmpty())
+            return Optional.empty(); // default value
+
+        return Optional.of(Paths.get(value).toAbsolutePath().normalize());
+    }
+
+    private static BootProfiler.Format getBootProfileFormat() {
+
+        final var value = System.getProperty(PROPERTY_BOOT_PROFILE_FORMAT);
+
+        if (value == null || value.isEmpty())
+            return BootProfiler.Format.JSON; // default value
+
+        try {
+
+            return BootProfiler.Format.valueOf(value.toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+
+            throw new IllegalArgumentException("Incorrect boot profile format " + value);
+        }
+    }
+
+    private void createPidFile(Path file)
+            throws IOException {
+
+        Files.createDirectories(file.getParent());
+
+        try (final var writer = Files.newBufferedWriter(file)) {
+
+            writer.write(String.valueOf(ProcessHandle.current().pid()));
         }
 
-        if (!transitive)
-            results.removeIf(x -> !x.getKey().equals(name));
+        file.toFile().deleteOnExit();
+    }
+
+    private List<String> transformExports(List<String> extraExportPackages) {
+
+        return PackageIndex.build(this.getClass().getClassLoader(), extraExportPackages)
+                .transformExports(extraExportPackages);
+    }
+
+    private enum HttpTransport {
 
-        return results;
+        APACHE,
+        JDK
     }
 }
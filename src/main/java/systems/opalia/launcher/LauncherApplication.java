@@ -12,6 +12,7 @@ public final class LauncherApplication {
     public static void main(String[] args) {
 
         boolean dryRun = false;
+        boolean prefetch = false;
 
         System.setProperty(Launcher.PROPERTY_AUTO_SHUTDOWN, "true");
 
@@ -23,6 +24,18 @@ public final class LauncherApplication {
                 continue;
             }
 
+            if (arg.equals("--prefetch")) {
+
+                prefetch = true;
+                continue;
+            }
+
+            if (arg.equals("--lock")) {
+
+                System.setProperty(Launcher.PROPERTY_LOCK_MODE, "write");
+                continue;
+            }
+
             if (arg.startsWith("--config-file=")) {
 
                 System.getProperties().putAll(loadPropertiesFromFile(arg.substring(14)));
@@ -34,6 +47,16 @@ public final class LauncherApplication {
             throw new IllegalArgumentException("Cannot process unknown argument " + arg);
         }
 
+        // a prefetch never installs bundles, but it honors --lock and writes the lock file of the resolved artifacts
+        if (prefetch && dryRun)
+            throw new IllegalArgumentException("Cannot combine argument --prefetch with --dry-run");
+
+        if (prefetch) {
+
+            Launcher.prefetch();
+            return;
+        }
+
         final var launcher = new Launcher();
 
         launcher.setup(dryRun);
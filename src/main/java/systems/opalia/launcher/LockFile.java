@@ -0,0 +1,165 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class LockFile {
+
+    // line based format:
+    // request=<requested coordinates joined by comma>
+    // resolution=<direct or transitive>
+    // <resolved coordinate> TAB <size> TAB <last modified millis> TAB <SHA-256> TAB <absolute path>
+
+    private static final String HEADER = "# Generated by the launcher, do not edit";
+    private static final String REQUEST_PREFIX = "request=";
+    private static final String RESOLUTION_PREFIX = "resolution=";
+
+    private final Logger logger = LoggerFactory.getLogger(LockFile.class);
+    private final Path file;
+
+    LockFile(Path file) {
+
+        this.file = file;
+    }
+
+    Path getPath() {
+
+        return file;
+    }
+
+    Optional<List<Artifact>> read(List<String> requestedCoordinates, BundleArtifacts.Resolution resolution) {
+
+        if (!Files.isRegularFile(file))
+            return Optional.empty();
+
+        final List<String> lines;
+
+        try {
+
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot read lock file {}", file, e);
+            return Optional.empty();
+        }
+
+        final var request = lines.stream()
+                .filter(x -> x.startsWith(REQUEST_PREFIX))
+                .findFirst()
+                .map(x -> x.substring(REQUEST_PREFIX.length()));
+
+        if (request.isEmpty() || !request.get().equals(String.join(",", requestedCoordinates))) {
+
+            logger.debug("The lock file {} was written for another set of bundle artifacts", file);
+            return Optional.empty();
+        }
+
+        // the same request resolves to other artifacts with the other resolution mode
+        if (!lines.contains(RESOLUTION_PREFIX + resolution.name().toLowerCase())) {
+
+            logger.debug("The lock file {} was written for another bundle resolution", file);
+            return Optional.empty();
+        }
+
+        final var artifacts = new ArrayList<Artifact>();
+
+        for (final var line : lines) {
+
+            if (line.isBlank() ||
+                    line.startsWith("#") ||
+                    line.startsWith(REQUEST_PREFIX) ||
+                    line.startsWith(RESOLUTION_PREFIX))
+                continue;
+
+            final var columns = line.split("\t", 5);
+
+            if (columns.length != 5) {
+
+                logger.debug("The lock file {} contains a malformed entry", file);
+                return Optional.empty();
+            }
+
+            final var path = Paths.get(columns[4]);
+
+            try {
+
+                if (!Files.isRegularFile(path) || Files.size(path) != Long.parseLong(columns[1])) {
+
+                    logger.debug("The locked artifact {} has been changed or removed", columns[0]);
+                    return Optional.empty();
+                }
+
+                // the checksum is only computed if the file was touched since the lock file was written
+                if (Files.getLastModifiedTime(path).toMillis() != Long.parseLong(columns[2]) &&
+                        !Checksums.sha256(path).equals(columns[3])) {
+
+                    logger.debug("The locked artifact {} has been changed or removed", columns[0]);
+                    return Optional.empty();
+                }
+
+            } catch (IOException | NumberFormatException e) {
+
+                logger.debug("Cannot verify locked artifact {}", columns[0], e);
+                return Optional.empty();
+            }
+
+            artifacts.add(new DefaultArtifact(columns[0]).setFile(path.toFile()));
+        }
+
+        return Optional.of(artifacts);
+    }
+
+    void write(List<String> requestedCoordinates,
+               BundleArtifacts.Resolution resolution,
+               List<Artifact> artifacts) {
+
+        final var lines = new ArrayList<String>();
+
+        lines.add(HEADER);
+        lines.add(REQUEST_PREFIX + String.join(",", requestedCoordinates));
+        lines.add(RESOLUTION_PREFIX + resolution.name().toLowerCase());
+
+        try {
+
+            for (final var artifact : artifacts) {
+
+                final var path = artifact.getFile().toPath().toAbsolutePath().normalize();
+
+                lines.add(artifact + "\t" + Files.size(path) + "\t" + Files.getLastModifiedTime(path).toMillis() +
+                        "\t" + Checksums.sha256(path) + "\t" + path);
+            }
+
+            Files.createDirectories(file.getParent());
+
+            final var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    enum Mode {
+
+        NONE,
+        READ,
+        WRITE
+    }
+}
@@ -0,0 +1,312 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.aether.artifact.Artifact;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.FrameworkWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class ManagedBundles {
+
+    // remembers which bundle was installed from which artifact file, so a framework that kept its cache
+    // only needs to install, update or uninstall the differences; one property per artifact:
+    // <groupId:artifactId:extension:classifier:version>=<bundle id> TAB <size> TAB <last modified> TAB <file> TAB
+    // <location>
+
+    private static final long REFRESH_TIMEOUT = 60_000;
+
+    private final Logger logger = LoggerFactory.getLogger(ManagedBundles.class);
+    private final Path file;
+
+    ManagedBundles(Path file) {
+
+        this.file = file;
+    }
+
+    List<Bundle> synchronize(BundleContext bundleContext,
+                             List<Artifact> artifacts,
+                             BundleLocations bundleLocations,
+                             BootProfiler profiler)
+            throws BundleException, IOException {
+
+        final var previous = read();
+        final var requested = new HashSet<String>();
+        final var current = new LinkedHashMap<String, Entry>();
+        final var bundles = new ArrayList<Bundle>();
+        final var changed = new ArrayList<Bundle>();
+        var installed = 0;
+        var updated = 0;
+
+        for (final var artifact : artifacts)
+            requested.add(getKey(artifact));
+
+        for (final var artifact : artifacts) {
+
+            final var key = getKey(artifact);
+            final var path = artifact.getFile().toPath().toAbsolutePath();
+            final var size = Files.size(path);
+            final var modified = Files.getLastModifiedTime(path).toMillis();
+            final var entry = previous.containsKey(key)
+                    ? previous.remove(key)
+                    : removeOtherVersion(previous, key, requested);
+            final var existing = entry == null ? null : entry.find(bundleContext);
+            final Bundle bundle;
+
+            try (final var span = profiler.begin(BootProfiler.CATEGORY_BUNDLE_INSTALL, artifact.toString())) {
+
+                if (existing == null) {
+
+                    bundle = bundleContext.installBundle(bundleLocations.toLocation(artifact));
+                    installed++;
+
+                } else if (!entry.matches(path, size, modified)) {
+
+                    // an update keeps the bundle id and its persistent storage area
+                    try (final var stream = Files.newInputStream(path)) {
+
+                        existing.update(stream);
+                    }
+
+                    bundle = existing;
+                    changed.add(bundle);
+                    updated++;
+
+                } else {
+
+                    bundle = existing;
+                }
+            }
+
+            bundles.add(bundle);
+            current.put(key, new Entry(bundle.getBundleId(), size, modified, path.toString(), bundle.getLocation()));
+        }
+
+        var uninstalled = 0;
+
+        for (final var entry : previous.values()) {
+
+            final var bundle = entry.find(bundleContext);
+
+            // an installation at the same location returns the existing bundle, which is still requested then
+            if (bundle != null && !bundles.contains(bundle)) {
+
+                bundle.uninstall();
+                changed.add(bundle);
+                uninstalled++;
+            }
+        }
+
+        logger.debug("Installed {}, updated {}, uninstalled {} and kept {} bundles",
+                installed, updated, uninstalled, bundles.size() - installed - updated);
+
+        if (!changed.isEmpty())
+            refresh(bundleContext, changed);
+
+        write(current);
+
+        return bundles;
+    }
+
+    void record(Map<Artifact, Bundle> changes) {
+
+        // bundles updated or installed at runtime, so that the next warm boot compares against their actual files
+        final var entries = read();
+
+        try {
+
+            for (final var change : changes.entrySet()) {
+
+                final var bundle = change.getValue();
+                final var path = change.getKey().getFile().toPath().toAbsolutePath();
+
+                // an updated bundle may be recorded under the key of another version
+                entries.values().removeIf(x -> x.bundleId == bundle.getBundleId());
+                entries.put(getKey(change.getKey()), new Entry(bundle.getBundleId(), Files.size(path),
+                        Files.getLastModifiedTime(path).toMillis(), path.toString(), bundle.getLocation()));
+            }
+
+        } catch (IOException e) {
+
+            // without the state every requested bundle is installed again, which is always correct
+            logger.warn("Cannot record changed bundles in {}", file, e);
+            clear();
+            return;
+        }
+
+        write(entries);
+    }
+
+    void clear() {
+
+        try {
+
+            Files.deleteIfExists(file);
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot delete managed bundles {}", file, e);
+        }
+    }
+
+    static void refresh(BundleContext bundleContext, Collection<Bundle> bundles) {
+
+        // a single refresh for all changes; consumers of old revisions are rewired together
+        final var frameworkWiring = bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+                .adapt(FrameworkWiring.class);
+        final var latch = new CountDownLatch(1);
+
+        frameworkWiring.refreshBundles(bundles, event -> latch.countDown());
+
+        try {
+
+            if (!latch.await(REFRESH_TIMEOUT, TimeUnit.MILLISECONDS))
+                LoggerFactory.getLogger(ManagedBundles.class)
+                        .warn("The refresh of {} bundles did not finish within {} ms", bundles.size(), REFRESH_TIMEOUT);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Entry> read() {
+
+        final var entries = new HashMap<String, Entry>();
+
+        if (!Files.isRegularFile(file))
+            return entries;
+
+        final var properties = new Properties();
+
+        try (final var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+            properties.load(reader);
+
+            for (final var name : properties.stringPropertyNames()) {
+
+                final var columns = properties.getProperty(name).split("\t", 5);
+
+                if (columns.length == 5)
+                    entries.put(name, new Entry(
+                            Long.parseLong(columns[0]),
+                            Long.parseLong(columns[1]),
+                            Long.parseLong(columns[2]),
+                            columns[3],
+                            columns[4]));
+            }
+
+        } catch (IOException | NumberFormatException e) {
+
+            // without the state every requested bundle is installed again, which is always correct
+            logger.warn("Cannot read managed bundles {}", file, e);
+            entries.clear();
+        }
+
+        return entries;
+    }
+
+    private void write(Map<String, Entry> entries) {
+
+        final var properties = new Properties();
+
+        for (final var entry : entries.entrySet())
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+
+        try {
+
+            Files.createDirectories(file.getParent());
+
+            final var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try (final var writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+
+                properties.store(writer, null);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot write managed bundles {}", file, e);
+        }
+    }
+
+    private static Entry removeOtherVersion(Map<String, Entry> previous, String key, Set<String> requested) {
+
+        // another version of the same artifact is updated in place, unless it is requested as well
+        final var base = getBase(key);
+
+        for (final var iterator = previous.entrySet().iterator(); iterator.hasNext(); ) {
+
+            final var candidate = iterator.next();
+
+            if (getBase(candidate.getKey()).equals(base) && !requested.contains(candidate.getKey())) {
+
+                iterator.remove();
+                return candidate.getValue();
+            }
+        }
+
+        return null;
+    }
+
+    private static String getKey(Artifact artifact) {
+
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":" +
+                artifact.getClassifier() + ":" + artifact.getBaseVersion();
+    }
+
+    private static String getBase(String key) {
+
+        return key.substring(0, key.lastIndexOf(':'));
+    }
+
+    private static final class Entry {
+
+        private final long bundleId;
+        private final long size;
+        private final long modified;
+        private final String path;
+        private final String location;
+
+        private Entry(long bundleId, long size, long modified, String path, String location) {
+
+            this.bundleId = bundleId;
+            this.size = size;
+            this.modified = modified;
+            this.path = path;
+            this.location = location;
+        }
+
+        private Bundle find(BundleContext bundleContext) {
+
+            // a cleaned cache may have given the id to another bundle
+            final var bundle = bundleContext.getBundle(bundleId);
+
+            return bundle != null && bundle.getLocation().equals(location) ? bundle : null;
+        }
+
+        private boolean matches(Path path, long size, long modified) {
+
+            return this.path.equals(path.toString()) && this.size == size && this.modified == modified;
+        }
+
+        @Override
+        public String toString() {
+
+            return bundleId + "\t" + size + "\t" + modified + "\t" + path + "\t" + location;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package systems.opalia.launcher;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+final class NamedThreadFactory
+        implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    NamedThreadFactory(String prefix) {
+
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+
+        final var thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+
+        thread.setDaemon(true);
+
+        return thread;
+    }
+}
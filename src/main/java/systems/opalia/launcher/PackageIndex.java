@@ -0,0 +1,191 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+
+final class PackageIndex {
+
+    private static final Pattern SEMVER_PATTERN = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)([-.].+)?$");
+    private static final Pattern LEADING_ZEROS_PATTERN = Pattern.compile("^0+(?!$)");
+
+    private final Node root = new Node();
+
+    private PackageIndex() {
+    }
+
+    static PackageIndex build(ClassLoader classLoader, List<String> packageNames) {
+
+        final var index = new PackageIndex();
+        final var visited = new HashSet<String>();
+
+        try {
+
+            for (final var packageName : packageNames) {
+
+                final var urls = classLoader.getResources(getBaseName(packageName).replace('.', '/'));
+
+                while (urls.hasMoreElements()) {
+
+                    final var url = urls.nextElement();
+
+                    if (!url.getProtocol().equals("jar"))
+                        throw new IllegalArgumentException("Cannot handle URI scheme " + url.getProtocol());
+
+                    final var connection = (JarURLConnection) url.openConnection();
+
+                    // each archive is scanned only once, even if several patterns point into it
+                    if (visited.add(connection.getJarFileURL().toString()))
+                        index.add(connection.getJarFile());
+                }
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+
+        return index;
+    }
+
+    List<String> transformExports(List<String> packageNames) {
+
+        final var results = new LinkedHashSet<String>();
+
+        for (final var packageName : packageNames) {
+
+            final var transitive = packageName.endsWith(".*");
+            final var node = find(getBaseName(packageName));
+
+            if (node == null)
+                continue;
+
+            if (transitive)
+                node.collect(getBaseName(packageName), results);
+            else
+                node.export(getBaseName(packageName), results);
+        }
+
+        return new ArrayList<>(results);
+    }
+
+    static void extractSemver(StringBuilder builder, String value) {
+
+        final var matcher = SEMVER_PATTERN.matcher(value);
+
+        if (!matcher.matches())
+            throw new IllegalArgumentException("Unexpected version format");
+
+        builder.append(LEADING_ZEROS_PATTERN.matcher(matcher.group(1)).replaceFirst(""));
+        builder.append('.');
+        builder.append(LEADING_ZEROS_PATTERN.matcher(matcher.group(2)).replaceFirst(""));
+        builder.append('.');
+        builder.append(LEADING_ZEROS_PATTERN.matcher(matcher.group(3)).replaceFirst(""));
+    }
+
+    private void add(JarFile file)
+            throws IOException {
+
+        final var attributes = file.getManifest().getMainAttributes();
+        final var archive = new Archive(
+                file.getName(),
+                attributes.getValue("Bundle-Version"),
+                attributes.getValue("Specification-Version"));
+        final var entries = file.entries();
+
+        while (entries.hasMoreElements()) {
+
+            final var entry = entries.nextElement();
+
+            if (entry.isDirectory() && !entry.getName().startsWith("META-INF/")) {
+
+                var node = root;
+
+                for (final var segment : entry.getName().split("/"))
+                    node = node.children.computeIfAbsent(segment, x -> new Node());
+
+                node.archives.add(archive);
+            }
+        }
+    }
+
+    private Node find(String packageName) {
+
+        var node = root;
+
+        for (final var segment : packageName.split("\\.")) {
+
+            node = node.children.get(segment);
+
+            if (node == null)
+                return null;
+        }
+
+        return node;
+    }
+
+    private static String getBaseName(String packageName) {
+
+        return packageName.endsWith(".*") ? packageName.substring(0, packageName.length() - 2) : packageName;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new TreeMap<>();
+        private final List<Archive> archives = new ArrayList<>(1);
+
+        private void export(String packageName, Set<String> results) {
+
+            for (final var archive : archives)
+                results.add(packageName + ";version=\"" + archive.getVersion(packageName) + "\"");
+        }
+
+        private void collect(String packageName, Set<String> results) {
+
+            export(packageName, results);
+
+            for (final var child : children.entrySet())
+                child.getValue().collect(packageName + "." + child.getKey(), results);
+        }
+    }
+
+    private static final class Archive {
+
+        private final String name;
+        private final String bundleVersion;
+        private final String specVersion;
+        private String version;
+
+        private Archive(String name, String bundleVersion, String specVersion) {
+
+            this.name = name;
+            this.bundleVersion = bundleVersion;
+            this.specVersion = specVersion;
+        }
+
+        private String getVersion(String packageName) {
+
+            // computed lazily, archives without a version only fail if one of their packages is exported
+            if (version == null) {
+
+                final var builder = new StringBuilder();
+
+                if (bundleVersion != null)
+                    extractSemver(builder, bundleVersion);
+                else if (specVersion != null)
+                    extractSemver(builder, specVersion);
+                else
+                    throw new IllegalArgumentException("Cannot get version of package " + packageName +
+                            " from " + name);
+
+                version = builder.toString();
+            }
+
+            return version;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package systems.opalia.launcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+
+
+final class RepositorySelector
+        extends AbstractTransferListener {
+
+    // weight of the latest sample in the moving averages
+    private static final double ALPHA = 0.3;
+    // an error rate of 100 % counts like ten times the latency
+    private static final double ERROR_PENALTY = 10.0;
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long DEFAULT_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final double HEDGE_FACTOR = 2.0;
+
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final Map<TransferResource, Long> timestamps = new ConcurrentHashMap<>();
+
+    List<RemoteRepository> order(List<RemoteRepository> repositories) {
+
+        if (repositories.size() < 2)
+            return repositories;
+
+        final var ordered = new ArrayList<>(repositories);
+
+        // the sort is stable, so equally ranked repositories keep their configured order
+        ordered.sort(Comparator.comparingDouble(x -> getScore(x.getId())));
+
+        return ordered;
+    }
+
+    long getHedgeDelayNanos(RemoteRepository repository) {
+
+        final var entry = statistics.get(repository.getId());
+
+        if (entry == null)
+            return DEFAULT_HEDGE_DELAY_NANOS;
+
+        synchronized (entry) {
+
+            if (entry.samples == 0)
+                return DEFAULT_HEDGE_DELAY_NANOS;
+
+            return Math.max(MIN_HEDGE_DELAY_NANOS, (long) (entry.latencyNanos * HEDGE_FACTOR));
+        }
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) {
+
+        timestamps.put(event.getResource(), System.nanoTime());
+    }
+
+    @Override
+    public void transferStarted(TransferEvent event) {
+
+        // the time to the first byte is the latency of the repository
+        recordLatency(event);
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+
+        recordLatency(event);
+        recordOutcome(event, false);
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+
+        final var exception = event.getException();
+
+        // a repository without the requested resource is not considered faulty; other failures say nothing
+        // about the latency of a working repository
+        if (exception instanceof ArtifactNotFoundException || exception instanceof MetadataNotFoundException) {
+
+            recordLatency(event);
+            recordOutcome(event, false);
+
+        } else {
+
+            timestamps.remove(event.getResource());
+            recordOutcome(event, true);
+        }
+    }
+
+    @Override
+    public void transferCorrupted(TransferEvent event) {
+
+        recordOutcome(event, true);
+    }
+
+    private void recordLatency(TransferEvent event) {
+
+        final var timestamp = timestamps.remove(event.getResource());
+
+        if (timestamp == null)
+            return;
+
+        final var latency = System.nanoTime() - timestamp;
+        final var entry = getStatistics(event);
+
+        synchronized (entry) {
+
+            entry.latencyNanos = entry.samples == 0 ? latency : ALPHA * latency + (1 - ALPHA) * entry.latencyNanos;
+            entry.samples++;
+        }
+    }
+
+    private void recordOutcome(TransferEvent event, boolean failed) {
+
+        final var entry = getStatistics(event);
+
+        synchronized (entry) {
+
+            entry.errorRate = ALPHA * (failed ? 1 : 0) + (1 - ALPHA) * entry.errorRate;
+        }
+    }
+
+    private Statistics getStatistics(TransferEvent event) {
+
+        return statistics.computeIfAbsent(event.getResource().getRepositoryId(), x -> new Statistics());
+    }
+
+    private double getScore(String repositoryId) {
+
+        final var entry = statistics.get(repositoryId);
+
+        // repositories without samples are tried first, so that every repository gets measured
+        if (entry == null)
+            return 0;
+
+        synchronized (entry) {
+
+            if (entry.samples == 0)
+                return entry.errorRate > 0 ? Double.POSITIVE_INFINITY : 0;
+
+            return entry.latencyNanos * (1 + ERROR_PENALTY * entry.errorRate);
+        }
+    }
+
+    private static final class Statistics {
+
+        private double latencyNanos;
+        private double errorRate;
+        private long samples;
+    }
+}
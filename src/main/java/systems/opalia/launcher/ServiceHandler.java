@@ -1,34 +1,79 @@
 package systems.opalia.launcher;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+import systems.opalia.launcher.metrics.ServiceMetrics;
 
 
 public final class ServiceHandler {
 
+    // registrations and references are kept in lock-free queues per service class; releasing them
+    // polls each entry exactly once, so concurrent or repeated calls never release anything twice
+
     private final BundleContext bundleContext;
-    private final List<ServiceRegistration<?>> serviceRegistrations = new ArrayList<>();
-    private final List<ServiceReference<?>> serviceReferences = new ArrayList<>();
+    private final boolean tracking;
+    private final ConcurrentMap<String, Queue<ServiceRegistration<?>>> serviceRegistrations =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Queue<ServiceReference<?>>> serviceReferences = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Tracker<?>> trackers = new ConcurrentHashMap<>();
+    private final ServiceMetrics metrics = new ServiceMetrics();
 
     public ServiceHandler(BundleContext bundleContext) {
 
+        this(bundleContext, false);
+    }
+
+    public ServiceHandler(BundleContext bundleContext, boolean tracking) {
+
         this.bundleContext = bundleContext;
+        this.tracking = tracking;
+    }
+
+    public ServiceMetrics getMetrics() {
+
+        return metrics;
     }
 
     public void unregisterServices() {
 
-        serviceRegistrations.forEach(ServiceRegistration::unregister);
-        serviceRegistrations.clear();
+        metrics.recordUnregistrations(drain(serviceRegistrations, x -> {
+
+            try {
+
+                x.unregister();
+
+            } catch (IllegalStateException e) {
+
+                // already unregistered, e.g. by stopping the framework
+            }
+        }));
     }
 
     public void ungetServices() {
 
-        serviceReferences.forEach(bundleContext::ungetService);
-        serviceReferences.clear();
+        metrics.recordReleases(drain(serviceReferences, bundleContext::ungetService));
+
+        // a tracker holds a single reference count per tracked service
+        for (final var key : trackers.keySet()) {
+
+            final var tracker = trackers.remove(key);
+
+            if (tracker != null) {
+
+                metrics.recordReleases(tracker.size());
+                tracker.close();
+            }
+        }
     }
 
     public ServiceManager getServiceManager() {
@@ -45,33 +90,224 @@ public final class ServiceHandler {
 
         public <T> void registerService(Class<T> clazz, T service, Dictionary<String, ?> properties) {
 
-            serviceRegistrations.add(bundleContext.registerService(clazz, service, properties));
+            final var registration = bundleContext.registerService(clazz, service, properties);
+
+            serviceRegistrations.computeIfAbsent(clazz.getName(), x -> new ConcurrentLinkedQueue<>()).add(registration);
+            metrics.recordRegistration();
         }
 
         public <T> T getService(Class<T> clazz) {
 
-            return Optional.ofNullable(bundleContext.getServiceReference(clazz))
-                    .flatMap(x -> {
+            final var service = tracking ?
+                    Optional.ofNullable(getTrackedService(clazz)) :
+                    Optional.ofNullable(bundleContext.getServiceReference(clazz))
+                            .map(x -> getService(clazz, x));
 
-                        serviceReferences.add(x);
+            metrics.recordLookup(service.isPresent());
 
-                        return Optional.ofNullable(bundleContext.getService(x));
-                    })
-                    .orElseThrow(() -> new IllegalArgumentException("Cannot find service " + clazz.getName()));
+            return service.orElseThrow(() -> new IllegalArgumentException("Cannot find service " + clazz.getName()));
         }
 
         public <T> List<T> getServices(Class<T> clazz, String filter)
                 throws InvalidSyntaxException {
 
-            return bundleContext.getServiceReferences(clazz, filter).stream()
-                    .map(x -> {
+            if (tracking) {
 
-                        serviceReferences.add(x);
+                final var services = getTrackedServices(clazz, filter);
 
-                        return bundleContext.getService(x);
-                    })
+                metrics.recordLookup(!services.isEmpty());
+
+                return services;
+            }
+
+            final var services = bundleContext.getServiceReferences(clazz, filter).stream()
+                    .map(x -> getService(clazz, x))
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
+
+            metrics.recordLookup(!services.isEmpty());
+
+            return services;
+        }
+
+        private <T> T getService(Class<T> clazz, ServiceReference<T> reference) {
+
+            final var service = bundleContext.getService(reference);
+
+            // recorded after the reference count is taken, so a concurrent release cannot miss it
+            if (service != null)
+                serviceReferences.computeIfAbsent(clazz.getName(), x -> new ConcurrentLinkedQueue<>()).add(reference);
+
+            return service;
+        }
+
+        private <T> T getTrackedService(Class<T> clazz) {
+
+            // a tracker closed by a concurrent release is replaced by a new one
+            while (true) {
+
+                final var tracker = getTracker(clazz);
+                final var service = tracker.getService();
+
+                if (service != null || !tracker.isClosed())
+                    return service;
+            }
+        }
+
+        private <T> List<T> getTrackedServices(Class<T> clazz, String filter)
+                throws InvalidSyntaxException {
+
+            while (true) {
+
+                final var tracker = getTracker(clazz, filter);
+                final var services = tracker.getRankedServices();
+
+                if (!services.isEmpty() || !tracker.isClosed())
+                    return services;
+            }
+        }
+
+        private <T> Tracker<T> getTracker(Class<T> clazz) {
+
+            try {
+
+                return getTracker(clazz, null);
+
+            } catch (InvalidSyntaxException e) {
+
+                // cannot happen without a filter
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Tracker<T> getTracker(Class<T> clazz, String filter)
+                throws InvalidSyntaxException {
+
+            final var key = filter == null ? clazz.getName() : clazz.getName() + filter;
+            final var tracker = trackers.get(key);
+
+            if (tracker != null)
+                return (Tracker<T>) tracker;
+
+            final var created = filter == null ?
+                    new Tracker<>(bundleContext, clazz) :
+                    new Tracker<T>(bundleContext, "(&(" + Constants.OBJECTCLASS + "=" + clazz.getName() + ")" +
+                            filter + ")");
+
+            // opened before publishing, so no caller sees a tracker without its initial services
+            created.open();
+
+            final var previous = trackers.putIfAbsent(key, created);
+
+            if (previous != null) {
+
+                created.close();
+
+                return (Tracker<T>) previous;
+            }
+
+            return created;
+        }
+    }
+
+    private static <T> int drain(Map<String, Queue<T>> registry, Consumer<T> release) {
+
+        var count = 0;
+
+        for (final var queue : registry.values())
+            for (var entry = queue.poll(); entry != null; entry = queue.poll()) {
+
+                release.accept(entry);
+                count++;
+            }
+
+        return count;
+    }
+
+    private static final class Tracker<T> {
+
+        // the service tracker caches the highest ranked service; the ranked list is cached
+        // until the tracking count reveals an added, modified or removed service
+        private final ServiceTracker<T, T> serviceTracker;
+        private volatile Ranked<T> ranked;
+
+        private Tracker(BundleContext bundleContext, Class<T> clazz) {
+
+            serviceTracker = new ServiceTracker<>(bundleContext, clazz, null);
+        }
+
+        private Tracker(BundleContext bundleContext, String filter)
+                throws InvalidSyntaxException {
+
+            serviceTracker = new ServiceTracker<>(bundleContext, bundleContext.createFilter(filter), null);
+        }
+
+        private void open() {
+
+            serviceTracker.open();
+        }
+
+        private void close() {
+
+            serviceTracker.close();
+        }
+
+        private boolean isClosed() {
+
+            return serviceTracker.getTrackingCount() == -1;
+        }
+
+        private int size() {
+
+            return serviceTracker.size();
+        }
+
+        private T getService() {
+
+            return serviceTracker.getService();
+        }
+
+        private List<T> getRankedServices() {
+
+            final var count = serviceTracker.getTrackingCount();
+            final var cached = ranked;
+
+            if (cached != null && cached.count == count)
+                return cached.services;
+
+            final var references = serviceTracker.getServiceReferences();
+            final List<T> services;
+
+            if (references == null) {
+
+                services = Collections.emptyList();
+
+            } else {
+
+                Arrays.sort(references, Collections.reverseOrder());
+
+                services = Arrays.stream(references)
+                        .map(serviceTracker::getService)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toUnmodifiableList());
+            }
+
+            ranked = new Ranked<>(count, services);
+
+            return services;
+        }
+    }
+
+    private static final class Ranked<T> {
+
+        private final int count;
+        private final List<T> services;
+
+        private Ranked(int count, List<T> services) {
+
+            this.count = count;
+            this.services = services;
         }
     }
 }
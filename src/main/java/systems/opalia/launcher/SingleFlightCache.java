@@ -0,0 +1,265 @@
+package systems.opalia.launcher;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+
+final class SingleFlightCache<K, V> {
+
+    // the first caller of a key loads it, concurrent callers of the same key wait for that result;
+    // successful results are kept in a bounded LRU map until their time to live has passed, failures are not kept
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final BiPredicate<K, V> cacheable;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sharedRequests = new LongAdder();
+
+    SingleFlightCache(int maximumSize, Duration ttl) {
+
+        this(maximumSize, ttl, (key, value) -> true);
+    }
+
+    SingleFlightCache(int maximumSize, Duration ttl, BiPredicate<K, V> cacheable) {
+
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Expect a non-negative cache size");
+
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.cacheable = cacheable;
+    }
+
+    V get(K key, Function<K, V> loader) {
+
+        return getAll(Collections.singletonList(key), x -> Collections.singletonList(loader.apply(x.get(0))))
+                .get(key);
+    }
+
+    Map<K, V> getAll(List<K> keys, Function<List<K>, List<V>> loader) {
+
+        final var results = new HashMap<K, V>();
+        final var waiting = new LinkedHashMap<K, CompletableFuture<V>>();
+        final var leading = new LinkedHashMap<K, CompletableFuture<V>>();
+
+        for (final var key : new LinkedHashSet<>(keys)) {
+
+            final var cached = lookup(key);
+
+            if (cached.isPresent()) {
+
+                results.put(key, cached.get());
+                continue;
+            }
+
+            final var future = new CompletableFuture<V>();
+            final var existing = inFlight.putIfAbsent(key, future);
+
+            if (existing != null) {
+
+                sharedRequests.increment();
+                waiting.put(key, existing);
+                continue;
+            }
+
+            // a leader that finished in the meantime has already filled the cache
+            final var recent = lookup(key);
+
+            if (recent.isPresent()) {
+
+                inFlight.remove(key, future);
+                future.complete(recent.get());
+                results.put(key, recent.get());
+                continue;
+            }
+
+            misses.increment();
+            leading.put(key, future);
+        }
+
+        // own keys are loaded before waiting for others, so two callers can never wait for each other
+        if (!leading.isEmpty())
+            load(leading, loader, results);
+
+        for (final var entry : waiting.entrySet()) {
+
+            try {
+
+                results.put(entry.getKey(), entry.getValue().join());
+
+            } catch (CompletionException e) {
+
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+
+                throw e;
+            }
+        }
+
+        return results;
+    }
+
+    long getHits() {
+
+        return hits.sum();
+    }
+
+    long getMisses() {
+
+        return misses.sum();
+    }
+
+    long getSharedRequests() {
+
+        return sharedRequests.sum();
+    }
+
+    private void load(Map<K, CompletableFuture<V>> leading, Function<List<K>, List<V>> loader, Map<K, V> results) {
+
+        final var keys = new ArrayList<>(leading.keySet());
+
+        try {
+
+            complete(leading, keys, loader.apply(keys), Collections.nCopies(keys.size(), null), results);
+
+        } catch (PartialLoadException e) {
+
+            // the loaded keys are kept, only the waiters of the failed keys see a failure
+            @SuppressWarnings("unchecked") final var values = (List<V>) e.getValues();
+
+            complete(leading, keys, values, e.getFailures(), results);
+            throw e.getCause();
+
+        } catch (Throwable e) {
+
+            // errors must complete the futures as well, otherwise the waiters of these keys block forever
+            leading.values().forEach(x -> x.completeExceptionally(e));
+            throw e;
+
+        } finally {
+
+            leading.forEach(inFlight::remove);
+        }
+    }
+
+    private void complete(Map<K, CompletableFuture<V>> leading,
+                          List<K> keys,
+                          List<V> values,
+                          List<? extends RuntimeException> failures,
+                          Map<K, V> results) {
+
+        for (var i = 0; i < keys.size(); i++) {
+
+            final var key = keys.get(i);
+            final var value = values.get(i);
+            final var failure = failures.get(i);
+
+            if (failure != null) {
+
+                leading.get(key).completeExceptionally(failure);
+                continue;
+            }
+
+            store(key, value);
+            results.put(key, value);
+            leading.get(key).complete(value);
+        }
+    }
+
+    private Optional<V> lookup(K key) {
+
+        synchronized (entries) {
+
+            final var entry = entries.get(key);
+
+            if (entry != null && System.nanoTime() - entry.expiry < 0) {
+
+                hits.increment();
+                return Optional.of(entry.value);
+            }
+
+            if (entry != null)
+                entries.remove(key);
+
+            return Optional.empty();
+        }
+    }
+
+    private void store(K key, V value) {
+
+        if (!cacheable.test(key, value))
+            return;
+
+        synchronized (entries) {
+
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+
+            if (entries.size() > maximumSize) {
+
+                final var iterator = entries.values().iterator();
+
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    static final class PartialLoadException
+            extends RuntimeException {
+
+        // thrown by a loader that could load only some of the keys; values and failures are in the order of the keys
+        // and the failure of a key is null if it was loaded
+
+        private final List<?> values;
+        private final List<? extends RuntimeException> failures;
+
+        PartialLoadException(RuntimeException cause, List<?> values, List<? extends RuntimeException> failures) {
+
+            super(Objects.requireNonNull(cause));
+
+            this.values = values;
+            this.failures = failures;
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+
+            return (RuntimeException) super.getCause();
+        }
+
+        List<?> getValues() {
+
+            return values;
+        }
+
+        List<? extends RuntimeException> getFailures() {
+
+            return failures;
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiry;
+
+        private Entry(V value, long expiry) {
+
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package systems.opalia.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+final class SystemPackagesCache {
+
+    private static final String PROPERTY_KEY = "key";
+    private static final String PROPERTY_VALUE = "value";
+
+    private final Logger logger = LoggerFactory.getLogger(SystemPackagesCache.class);
+    private final Path file;
+
+    SystemPackagesCache(Path file) {
+
+        this.file = file;
+    }
+
+    Optional<String> get(String key) {
+
+        if (!Files.isRegularFile(file))
+            return Optional.empty();
+
+        final var properties = new Properties();
+
+        try (final var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+            properties.load(reader);
+
+        } catch (IOException e) {
+
+            logger.warn("Cannot read system packages cache {}", file, e);
+            return Optional.empty();
+        }
+
+        if (!key.equals(properties.getProperty(PROPERTY_KEY)))
+            return Optional.empty();
+
+        return Optional.ofNullable(properties.getProperty(PROPERTY_VALUE));
+    }
+
+    void put(String key, String value) {
+
+        final var properties = new Properties();
+
+        properties.setProperty(PROPERTY_KEY, key);
+        properties.setProperty(PROPERTY_VALUE, value);
+
+        try {
+
+            Files.createDirectories(file.getParent());
+
+            final var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try (final var writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+
+                properties.store(writer, null);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+
+            // the cache is an optimization only, the next boot simply scans the classpath again
+            logger.warn("Cannot write system packages cache {}", file, e);
+        }
+    }
+
+    static String computeKey(List<String> extraExportPackages, ClassLoader classLoader) {
+
+        final var builder = new StringBuilder();
+
+        for (final var extraExportPackage : extraExportPackages)
+            builder.append("export:").append(extraExportPackage).append('\n');
+
+        for (final var entry : getClasspathEntries(classLoader)) {
+
+            builder.append("entry:").append(entry);
+
+            try {
+
+                if (Files.isRegularFile(entry))
+                    builder.append('|')
+                            .append(Files.size(entry))
+                            .append('|')
+                            .append(Files.getLastModifiedTime(entry).toMillis());
+                else if (Files.isDirectory(entry))
+                    appendDirectoryKey(builder, entry);
+
+            } catch (IOException | UncheckedIOException e) {
+
+                builder.append("|unreadable");
+            }
+
+            builder.append('\n');
+        }
+
+        return Checksums.sha256(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendDirectoryKey(StringBuilder builder, Path directory)
+            throws IOException {
+
+        // classes compiled into a directory change its newest modification time or its number of files
+        var count = 0L;
+        var newest = 0L;
+
+        try (final var paths = Files.walk(directory)) {
+
+            for (final var iterator = paths.iterator(); iterator.hasNext(); ) {
+
+                count++;
+                newest = Math.max(newest, Files.getLastModifiedTime(iterator.next()).toMillis());
+            }
+        }
+
+        builder.append('|').append(count).append('|').append(newest);
+    }
+
+    private static Set<Path> getClasspathEntries(ClassLoader classLoader) {
+
+        final var entries = new LinkedHashSet<Path>();
+
+        // embedding applications may use their own class loaders, e.g. the Maven exec plugin
+        for (var current = classLoader; current != null; current = current.getParent())
+            if (current instanceof URLClassLoader)
+                for (final var url : ((URLClassLoader) current).getURLs()) {
+
+                    try {
+
+                        if (url.getProtocol().equals("file"))
+                            entries.add(Paths.get(url.toURI()).toAbsolutePath().normalize());
+
+                    } catch (URISyntaxException | IllegalArgumentException e) {
+
+                        // unusual class loader entries do not take part in the key
+                    }
+                }
+
+        for (final var entry : System.getProperty("java.class.path", "").split(File.pathSeparator))
+            if (!entry.isBlank())
+                entries.add(Paths.get(entry).toAbsolutePath().normalize());
+
+        return entries;
+    }
+}
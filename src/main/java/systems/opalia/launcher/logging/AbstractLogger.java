@@ -3,8 +3,8 @@ package systems.opalia.launcher.logging;
 import org.apache.logging.log4j.Level;
 import org.osgi.service.log.Logger;
 import org.osgi.service.log.LoggerConsumer;
-import org.slf4j.helpers.FormattingTuple;
 import systems.opalia.launcher.logging.formatter.Formatter;
+import systems.opalia.launcher.metrics.LoggingMetrics;
 
 
 public class AbstractLogger
@@ -12,11 +12,30 @@ public class AbstractLogger
 
     private final org.apache.logging.log4j.Logger underlying;
     private final Formatter formatter;
+    private final AsyncLogDispatcher dispatcher;
+    private final LoggingMetrics metrics;
 
     protected AbstractLogger(org.apache.logging.log4j.Logger underlying, Formatter formatter) {
 
+        this(underlying, formatter, null);
+    }
+
+    protected AbstractLogger(org.apache.logging.log4j.Logger underlying,
+                             Formatter formatter,
+                             AsyncLogDispatcher dispatcher) {
+
+        this(underlying, formatter, dispatcher, null);
+    }
+
+    protected AbstractLogger(org.apache.logging.log4j.Logger underlying,
+                             Formatter formatter,
+                             AsyncLogDispatcher dispatcher,
+                             LoggingMetrics metrics) {
+
         this.underlying = underlying;
         this.formatter = formatter;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
     }
 
     @Override
@@ -36,7 +55,7 @@ public class AbstractLogger
 
         if (isTraceEnabled()) {
 
-            underlying.trace(message);
+            log(Level.TRACE, message, 0, null, null, null);
         }
     }
 
@@ -45,8 +64,7 @@ public class AbstractLogger
 
         if (isTraceEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument);
-            underlying.trace(ft.getMessage(), ft.getThrowable());
+            log(Level.TRACE, messagePattern, 1, argument, null, null);
         }
     }
 
@@ -55,8 +73,7 @@ public class AbstractLogger
 
         if (isTraceEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-            underlying.trace(ft.getMessage(), ft.getThrowable());
+            log(Level.TRACE, messagePattern, 2, argument1, argument2, null);
         }
     }
 
@@ -65,8 +82,7 @@ public class AbstractLogger
 
         if (isTraceEnabled()) {
 
-            FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-            underlying.trace(ft.getMessage(), ft.getThrowable());
+            log(Level.TRACE, messagePattern, -1, null, null, arguments);
         }
     }
 
@@ -91,7 +107,7 @@ public class AbstractLogger
 
         if (isDebugEnabled()) {
 
-            underlying.debug(message);
+            log(Level.DEBUG, message, 0, null, null, null);
         }
     }
 
@@ -100,8 +116,7 @@ public class AbstractLogger
 
         if (isDebugEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument);
-            underlying.debug(ft.getMessage(), ft.getThrowable());
+            log(Level.DEBUG, messagePattern, 1, argument, null, null);
         }
     }
 
@@ -110,8 +125,7 @@ public class AbstractLogger
 
         if (isDebugEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-            underlying.debug(ft.getMessage(), ft.getThrowable());
+            log(Level.DEBUG, messagePattern, 2, argument1, argument2, null);
         }
     }
 
@@ -120,8 +134,7 @@ public class AbstractLogger
 
         if (isDebugEnabled()) {
 
-            FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-            underlying.debug(ft.getMessage(), ft.getThrowable());
+            log(Level.DEBUG, messagePattern, -1, null, null, arguments);
         }
     }
 
@@ -146,7 +159,7 @@ public class AbstractLogger
 
         if (isInfoEnabled()) {
 
-            underlying.info(message);
+            log(Level.INFO, message, 0, null, null, null);
         }
     }
 
@@ -155,8 +168,7 @@ public class AbstractLogger
 
         if (isInfoEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument);
-            underlying.info(ft.getMessage(), ft.getThrowable());
+            log(Level.INFO, messagePattern, 1, argument, null, null);
         }
     }
 
@@ -165,8 +177,7 @@ public class AbstractLogger
 
         if (isInfoEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-            underlying.info(ft.getMessage(), ft.getThrowable());
+            log(Level.INFO, messagePattern, 2, argument1, argument2, null);
         }
     }
 
@@ -175,8 +186,7 @@ public class AbstractLogger
 
         if (isInfoEnabled()) {
 
-            FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-            underlying.info(ft.getMessage(), ft.getThrowable());
+            log(Level.INFO, messagePattern, -1, null, null, arguments);
         }
     }
 
@@ -201,7 +211,7 @@ public class AbstractLogger
 
         if (isWarnEnabled()) {
 
-            underlying.warn(message);
+            log(Level.WARN, message, 0, null, null, null);
         }
     }
 
@@ -210,8 +220,7 @@ public class AbstractLogger
 
         if (isWarnEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument);
-            underlying.warn(ft.getMessage(), ft.getThrowable());
+            log(Level.WARN, messagePattern, 1, argument, null, null);
         }
     }
 
@@ -220,8 +229,7 @@ public class AbstractLogger
 
         if (isWarnEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-            underlying.warn(ft.getMessage(), ft.getThrowable());
+            log(Level.WARN, messagePattern, 2, argument1, argument2, null);
         }
     }
 
@@ -230,8 +238,7 @@ public class AbstractLogger
 
         if (isWarnEnabled()) {
 
-            FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-            underlying.warn(ft.getMessage(), ft.getThrowable());
+            log(Level.WARN, messagePattern, -1, null, null, arguments);
         }
     }
 
@@ -256,7 +263,7 @@ public class AbstractLogger
 
         if (isErrorEnabled()) {
 
-            underlying.error(message);
+            log(Level.ERROR, message, 0, null, null, null);
         }
     }
 
@@ -265,8 +272,7 @@ public class AbstractLogger
 
         if (isErrorEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument);
-            underlying.error(ft.getMessage(), ft.getThrowable());
+            log(Level.ERROR, messagePattern, 1, argument, null, null);
         }
     }
 
@@ -275,8 +281,7 @@ public class AbstractLogger
 
         if (isErrorEnabled()) {
 
-            FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-            underlying.error(ft.getMessage(), ft.getThrowable());
+            log(Level.ERROR, messagePattern, 2, argument1, argument2, null);
         }
     }
 
@@ -285,8 +290,7 @@ public class AbstractLogger
 
         if (isErrorEnabled()) {
 
-            FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-            underlying.error(ft.getMessage(), ft.getThrowable());
+            log(Level.ERROR, messagePattern, -1, null, null, arguments);
         }
     }
 
@@ -303,28 +307,65 @@ public class AbstractLogger
     @Override
     public void audit(String message) {
 
-        underlying.log(Level.ALL, message);
+        log(Level.ALL, message, 0, null, null, null);
     }
 
     @Override
     public void audit(String messagePattern, Object argument) {
 
-        FormattingTuple ft = formatter.format(messagePattern, argument);
-        underlying.log(Level.ALL, ft.getMessage(), ft.getThrowable());
+        log(Level.ALL, messagePattern, 1, argument, null, null);
     }
 
     @Override
     public void audit(String messagePattern, Object argument1, Object argument2) {
 
-        FormattingTuple ft = formatter.format(messagePattern, argument1, argument2);
-        underlying.log(Level.ALL, ft.getMessage(), ft.getThrowable());
+        log(Level.ALL, messagePattern, 2, argument1, argument2, null);
     }
 
     @Override
     public void audit(String messagePattern, Object... arguments) {
 
-        FormattingTuple ft = formatter.arrayFormat(messagePattern, arguments);
-        underlying.log(Level.ALL, ft.getMessage(), ft.getThrowable());
+        log(Level.ALL, messagePattern, -1, null, null, arguments);
+    }
+
+    private void log(Level level, String messagePattern, int arity, Object argument1, Object argument2,
+                     Object[] arguments) {
+
+        if (metrics != null)
+            metrics.recordEvent(level);
+
+        // with a dispatcher only the raw arguments are captured, formatting happens on its thread
+        if (dispatcher == null || !dispatcher.publish(
+                underlying, formatter, level, messagePattern, arity, argument1, argument2, arguments))
+            forward(underlying, formatter, level, messagePattern, arity, argument1, argument2, arguments);
     }
-}
 
+    static void forward(org.apache.logging.log4j.Logger underlying,
+                        Formatter formatter,
+                        Level level,
+                        String messagePattern,
+                        int arity,
+                        Object argument1,
+                        Object argument2,
+                        Object[] arguments) {
+
+        // arity is the number of single arguments or -1 for an argument array
+        if (arity == 0) {
+
+            underlying.log(level, messagePattern);
+            return;
+        }
+
+        final var message = ReusableFormattedMessage.acquire();
+
+        try {
+
+            message.set(formatter, messagePattern, arity, argument1, argument2, arguments);
+            underlying.log(level, message, message.getThrowable());
+
+        } finally {
+
+            message.release();
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package systems.opalia.launcher.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.ContextDataInjector;
+import org.apache.logging.log4j.core.impl.ContextDataInjectorFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StackLocatorUtil;
+import org.apache.logging.log4j.util.StringMap;
+import systems.opalia.launcher.logging.formatter.Formatter;
+
+
+public final class AsyncLogDispatcher
+        implements AutoCloseable {
+
+    // bounded multi-producer ring buffer; every slot carries a sequence number that tells
+    // producers and the single consumer whether the slot is free or holds a published event
+
+    private static final ContextDataInjector CONTEXT_DATA_INJECTOR = ContextDataInjectorFactory.createInjector();
+
+    private final Event[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final DropPolicy dropPolicy;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder processedEvents = new LongAdder();
+    private final Thread consumer;
+    private long head;
+    private volatile boolean consumerWaiting;
+    private volatile boolean running = true;
+
+    public AsyncLogDispatcher(int bufferSize, int batchSize, WaitStrategy waitStrategy, DropPolicy dropPolicy) {
+
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("Expect a buffer size that is a power of two");
+
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Expect a positive batch size");
+
+        this.events = new Event[bufferSize];
+        this.sequences = new AtomicLongArray(bufferSize);
+        this.mask = bufferSize - 1;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.dropPolicy = dropPolicy;
+
+        for (var i = 0; i < bufferSize; i++) {
+
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+
+        consumer = new Thread(this::consume, "logging-dispatcher");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public long getDroppedEvents() {
+
+        return droppedEvents.sum();
+    }
+
+    public long getProcessedEvents() {
+
+        return processedEvents.sum();
+    }
+
+    @Override
+    public void close() {
+
+        running = false;
+
+        LockSupport.unpark(consumer);
+
+        try {
+
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+
+            // events published while the consumer was finishing are handed over by the join
+            drainAfterClose();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean publish(org.apache.logging.log4j.Logger underlying,
+                    Formatter formatter,
+                    Level level,
+                    String messagePattern,
+                    int arity,
+                    Object argument1,
+                    Object argument2,
+                    Object[] arguments) {
+
+        // the caller logs synchronously after shutdown and for events raised by the consumer itself,
+        // e.g. from a toString method, which would otherwise wait for its own free slot
+        final var thread = Thread.currentThread();
+
+        if (!running || thread == consumer)
+            return false;
+
+        // the caller is captured here, since the consumer forwards the event from its own thread later
+        final var timeMillis = System.currentTimeMillis();
+        final var position = claim();
+
+        if (position < 0) {
+
+            droppedEvents.increment();
+            return true;
+        }
+
+        final var event = events[(int) (position & mask)];
+
+        event.underlying = underlying;
+        event.formatter = formatter;
+        event.level = level;
+        event.messagePattern = messagePattern;
+        event.arity = arity;
+        event.argument1 = argument1;
+        event.argument2 = argument2;
+        event.arguments = arguments;
+        event.threadName = thread.getName();
+        event.threadId = thread.getId();
+        event.threadPriority = thread.getPriority();
+        event.timeMillis = timeMillis;
+
+        if (underlying instanceof org.apache.logging.log4j.core.Logger)
+            capture(event, (org.apache.logging.log4j.core.Logger) underlying);
+
+        sequences.set((int) (position & mask), position + 1);
+
+        if (consumerWaiting)
+            LockSupport.unpark(consumer);
+
+        // a close that did not see this event leaves it to the producer
+        if (!running)
+            drainAfterClose();
+
+        return true;
+    }
+
+    private static void capture(Event event, org.apache.logging.log4j.core.Logger underlying) {
+
+        // the thread context and the location belong to the caller and are gone on the consumer thread
+        final var config = underlying.get();
+
+        if (!ThreadContext.isEmpty() || config.getPropertyList() != null)
+            event.contextData = CONTEXT_DATA_INJECTOR.injectContextData(config.getPropertyList(),
+                    new SortedArrayStringMap());
+
+        if (ThreadContext.getDepth() > 0)
+            event.contextStack = ThreadContext.getImmutableStack();
+
+        // walking the stack is only worth it if an appender prints the location
+        if (config.requiresLocation())
+            event.source = StackLocatorUtil.calcLocation(AbstractLogger.class.getName());
+    }
+
+    private long claim() {
+
+        var idle = 0;
+
+        while (true) {
+
+            final var position = tail.get();
+            final var difference = sequences.get((int) (position & mask)) - position;
+
+            if (difference == 0) {
+
+                if (tail.compareAndSet(position, position + 1))
+                    return position;
+
+            } else if (difference < 0) {
+
+                // the buffer is full
+                if (dropPolicy == DropPolicy.DISCARD || !running)
+                    return -1;
+
+                idle = backOff(idle);
+            }
+        }
+    }
+
+    private void consume() {
+
+        var idle = 0;
+
+        while (true) {
+
+            final var count = drain();
+
+            if (count > 0) {
+
+                idle = 0;
+                continue;
+            }
+
+            if (!running) {
+
+                drainAll();
+                return;
+            }
+
+            idle = waitForEvents(idle);
+        }
+    }
+
+    private synchronized void drainAfterClose() {
+
+        // the consumer is the only reader while it is alive, afterwards the lock serializes the readers
+        if (!consumer.isAlive())
+            drainAll();
+    }
+
+    private int drain() {
+
+        var count = 0;
+        var forwarded = 0;
+
+        while (count < batchSize) {
+
+            final var index = (int) (head & mask);
+
+            if (sequences.get(index) != head + 1)
+                break;
+
+            final var event = events[index];
+
+            try {
+
+                forward(event);
+                forwarded++;
+
+            } catch (RuntimeException e) {
+
+                // a failing argument must not stop the dispatcher
+                droppedEvents.increment();
+
+            } finally {
+
+                event.clear();
+                sequences.set(index, head + events.length);
+                head++;
+                count++;
+            }
+        }
+
+        if (forwarded > 0)
+            processedEvents.add(forwarded);
+
+        return count;
+    }
+
+    private static void forward(Event event) {
+
+        if (!(event.underlying instanceof org.apache.logging.log4j.core.Logger)) {
+
+            AbstractLogger.forward(event.underlying, event.formatter, event.level, event.messagePattern,
+                    event.arity, event.argument1, event.argument2, event.arguments);
+            return;
+        }
+
+        // with the core implementation the event keeps the thread, time, context and location of the caller
+        final var underlying = (org.apache.logging.log4j.core.Logger) event.underlying;
+
+        if (!underlying.isEnabled(event.level))
+            return;
+
+        if (event.arity == 0) {
+
+            log(underlying, event, new SimpleMessage(event.messagePattern), null);
+            return;
+        }
+
+        final var message = ReusableFormattedMessage.acquire();
+
+        try {
+
+            message.set(event.formatter, event.messagePattern, event.arity, event.argument1, event.argument2,
+                    event.arguments);
+            log(underlying, event, message, message.getThrowable());
+
+        } finally {
+
+            message.release();
+        }
+    }
+
+    private static void log(org.apache.logging.log4j.core.Logger underlying,
+                            Event event,
+                            Message message,
+                            Throwable throwable) {
+
+        underlying.get().log(Log4jLogEvent.newBuilder()
+                .setLoggerName(underlying.getName())
+                .setLoggerFqcn(AbstractLogger.class.getName())
+                .setLevel(event.level)
+                .setMessage(message)
+                .setThrown(throwable)
+                .setThreadName(event.threadName)
+                .setThreadId(event.threadId)
+                .setThreadPriority(event.threadPriority)
+                .setTimeMillis(event.timeMillis)
+                .setContextData(event.contextData)
+                .setContextStack(event.contextStack)
+                .setSource(event.source)
+                .build());
+    }
+
+    private void drainAll() {
+
+        var count = drain();
+
+        while (count > 0)
+            count = drain();
+    }
+
+    private int waitForEvents(int idle) {
+
+        switch (waitStrategy) {
+
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                return idle;
+
+            case YIELDING:
+                Thread.yield();
+                return idle;
+
+            case SLEEPING:
+                return backOff(idle);
+
+            default:
+                consumerWaiting = true;
+
+                // a producer that published in the meantime is seen by the next drain
+                if (sequences.get((int) (head & mask)) != head + 1 && running)
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+
+                consumerWaiting = false;
+                return idle;
+        }
+    }
+
+    private static int backOff(int idle) {
+
+        if (idle < 100)
+            Thread.onSpinWait();
+        else if (idle < 200)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(100_000);
+
+        return idle + 1;
+    }
+
+    public enum WaitStrategy {
+
+        BLOCKING,
+        SLEEPING,
+        YIELDING,
+        BUSY_SPIN
+    }
+
+    public enum DropPolicy {
+
+        BLOCK,
+        DISCARD
+    }
+
+    private static final class Event {
+
+        private org.apache.logging.log4j.Logger underlying;
+        private Formatter formatter;
+        private Level level;
+        private String messagePattern;
+        private int arity;
+        private Object argument1;
+        private Object argument2;
+        private Object[] arguments;
+        private String threadName;
+        private long threadId;
+        private int threadPriority;
+        private long timeMillis;
+        private StringMap contextData;
+        private ThreadContext.ContextStack contextStack;
+        private StackTraceElement source;
+
+        private void clear() {
+
+            underlying = null;
+            formatter = null;
+            level = null;
+            messagePattern = null;
+            argument1 = null;
+            argument2 = null;
+            arguments = null;
+            threadName = null;
+            contextData = null;
+            contextStack = null;
+            source = null;
+        }
+    }
+}
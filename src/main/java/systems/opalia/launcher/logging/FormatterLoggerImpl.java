@@ -2,6 +2,7 @@ package systems.opalia.launcher.logging;
 
 import org.osgi.service.log.FormatterLogger;
 import systems.opalia.launcher.logging.formatter.PrintfFormatter;
+import systems.opalia.launcher.metrics.LoggingMetrics;
 
 
 public class FormatterLoggerImpl
@@ -12,4 +13,19 @@ public class FormatterLoggerImpl
 
         super(underlying, formatter);
     }
+
+    public FormatterLoggerImpl(org.apache.logging.log4j.Logger underlying,
+                               PrintfFormatter formatter,
+                               AsyncLogDispatcher dispatcher) {
+
+        super(underlying, formatter, dispatcher);
+    }
+
+    public FormatterLoggerImpl(org.apache.logging.log4j.Logger underlying,
+                               PrintfFormatter formatter,
+                               AsyncLogDispatcher dispatcher,
+                               LoggingMetrics metrics) {
+
+        super(underlying, formatter, dispatcher, metrics);
+    }
 }
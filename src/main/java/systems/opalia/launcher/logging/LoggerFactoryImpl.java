@@ -1,60 +1,164 @@
 package systems.opalia.launcher.logging;
 
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.logging.log4j.LogManager;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
 import org.osgi.service.log.Logger;
 import org.osgi.service.log.LoggerFactory;
 import systems.opalia.launcher.logging.formatter.DefaultFormatter;
 import systems.opalia.launcher.logging.formatter.PrintfFormatter;
+import systems.opalia.launcher.metrics.LoggingMetrics;
 
 
 public class LoggerFactoryImpl
-        implements LoggerFactory {
+        implements LoggerFactory, SynchronousBundleListener {
+
+    // both formatters are stateless, so all loggers share them
+    private static final DefaultFormatter DEFAULT_FORMATTER = new DefaultFormatter();
+    private static final PrintfFormatter PRINTF_FORMATTER = new PrintfFormatter();
+
+    private final ConcurrentMap<Key, Logger> loggers = new ConcurrentHashMap<>();
+    private final AsyncLogDispatcher dispatcher;
+    private final LoggingMetrics metrics;
+
+    public LoggerFactoryImpl() {
+
+        this(null);
+    }
+
+    public LoggerFactoryImpl(AsyncLogDispatcher dispatcher) {
+
+        this(dispatcher, null);
+    }
+
+    public LoggerFactoryImpl(AsyncLogDispatcher dispatcher, LoggingMetrics metrics) {
+
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+    }
 
     @Override
     public Logger getLogger(String name) {
 
-        return createLogger(name, Logger.class);
+        return getOrCreateLogger(name, Logger.class, null);
     }
 
     @Override
     public Logger getLogger(Class<?> clazz) {
 
-        return createLogger(clazz, Logger.class);
+        return getOrCreateLogger(clazz, Logger.class, null);
     }
 
     @Override
     public <L extends Logger> L getLogger(String name, Class<L> loggerClazz) {
 
-        return createLogger(name, loggerClazz);
+        return getOrCreateLogger(name, loggerClazz, null);
     }
 
     @Override
     public <L extends Logger> L getLogger(Class<?> clazz, Class<L> loggerClazz) {
 
-        return createLogger(clazz, loggerClazz);
+        return getOrCreateLogger(clazz, loggerClazz, null);
     }
 
     @Override
     public <L extends Logger> L getLogger(Bundle bundle, String name, Class<L> loggerClazz) {
 
-        return createLogger(bundle.getSymbolicName() + ":" + name, loggerClazz);
+        return getOrCreateLogger(name, loggerClazz, bundle);
     }
 
-    private <L extends Logger> L createLogger(Object name, Class<L> loggerClazz) {
+    @Override
+    public void bundleChanged(BundleEvent event) {
+
+        // loggers of an outdated bundle revision would otherwise keep its class loader alive
+        switch (event.getType()) {
+
+            case BundleEvent.UPDATED:
+            case BundleEvent.UNRESOLVED:
+            case BundleEvent.UNINSTALLED:
+                loggers.keySet().removeIf(x -> x.belongsTo(event.getBundle()));
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private <L extends Logger> L getOrCreateLogger(Object name, Class<L> loggerClazz, Bundle bundle) {
+
+        final var key = new Key(name, loggerClazz, bundle);
+        final var logger = loggers.get(key);
+
+        if (logger != null)
+            return loggerClazz.cast(logger);
+
+        return loggerClazz.cast(loggers.computeIfAbsent(key, x -> createLogger(name, loggerClazz, bundle)));
+    }
+
+    private Logger createLogger(Object name, Class<? extends Logger> loggerClazz, Bundle bundle) {
+
+        if (bundle != null)
+            name = bundle.getSymbolicName() + ":" + name;
 
         if (name instanceof String && loggerClazz == org.osgi.service.log.FormatterLogger.class)
-            return (L) new FormatterLoggerImpl(LogManager.getLogger((String) name), new PrintfFormatter());
+            return new FormatterLoggerImpl(LogManager.getLogger((String) name), PRINTF_FORMATTER, dispatcher, metrics);
 
         if (name instanceof String && loggerClazz == org.osgi.service.log.Logger.class)
-            return (L) new LoggerImpl(LogManager.getLogger((String) name), new DefaultFormatter());
+            return new LoggerImpl(LogManager.getLogger((String) name), DEFAULT_FORMATTER, dispatcher, metrics);
 
         if (name instanceof Class && loggerClazz == org.osgi.service.log.FormatterLogger.class)
-            return (L) new FormatterLoggerImpl(LogManager.getLogger((Class) name), new PrintfFormatter());
+            return new FormatterLoggerImpl(LogManager.getLogger((Class) name), PRINTF_FORMATTER, dispatcher, metrics);
 
         if (name instanceof Class && loggerClazz == org.osgi.service.log.Logger.class)
-            return (L) new LoggerImpl(LogManager.getLogger((Class) name), new DefaultFormatter());
+            return new LoggerImpl(LogManager.getLogger((Class) name), DEFAULT_FORMATTER, dispatcher, metrics);
 
         throw new IllegalArgumentException("The specified logger type is not supported");
     }
+
+    private static final class Key {
+
+        private final Object name;
+        private final Class<?> loggerClazz;
+        private final Bundle bundle;
+        private final int hash;
+
+        private Key(Object name, Class<?> loggerClazz, Bundle bundle) {
+
+            this.name = name;
+            this.loggerClazz = loggerClazz;
+            this.bundle = bundle;
+            this.hash = Objects.hash(name, loggerClazz, bundle);
+        }
+
+        private boolean belongsTo(Bundle bundle) {
+
+            return this.bundle == bundle ||
+                    (name instanceof Class && FrameworkUtil.getBundle((Class<?>) name) == bundle);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+
+            if (this == other)
+                return true;
+
+            if (!(other instanceof Key))
+                return false;
+
+            final var key = (Key) other;
+
+            return Objects.equals(name, key.name) && loggerClazz == key.loggerClazz && bundle == key.bundle;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+    }
 }
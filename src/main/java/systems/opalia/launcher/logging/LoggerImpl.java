@@ -2,6 +2,7 @@ package systems.opalia.launcher.logging;
 
 import org.osgi.service.log.Logger;
 import systems.opalia.launcher.logging.formatter.DefaultFormatter;
+import systems.opalia.launcher.metrics.LoggingMetrics;
 
 
 public class LoggerImpl
@@ -12,4 +13,19 @@ public class LoggerImpl
 
         super(underlying, formatter);
     }
+
+    public LoggerImpl(org.apache.logging.log4j.Logger underlying,
+                      DefaultFormatter formatter,
+                      AsyncLogDispatcher dispatcher) {
+
+        super(underlying, formatter, dispatcher);
+    }
+
+    public LoggerImpl(org.apache.logging.log4j.Logger underlying,
+                      DefaultFormatter formatter,
+                      AsyncLogDispatcher dispatcher,
+                      LoggingMetrics metrics) {
+
+        super(underlying, formatter, dispatcher, metrics);
+    }
 }
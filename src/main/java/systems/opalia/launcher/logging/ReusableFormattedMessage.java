@@ -0,0 +1,153 @@
+package systems.opalia.launcher.logging;
+
+import java.util.Arrays;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import systems.opalia.launcher.logging.formatter.Formatter;
+
+
+final class ReusableFormattedMessage
+        implements ReusableMessage {
+
+    // log4j copies the text of a reusable message into its own event via formatTo,
+    // so one instance per thread is enough as long as nested log calls get their own one
+
+    private static final int DEFAULT_PARAMETERS = 10;
+
+    private static final ThreadLocal<ReusableFormattedMessage> messages =
+            ThreadLocal.withInitial(ReusableFormattedMessage::new);
+
+    private Formatter formatter;
+    private String messagePattern;
+    private Object[] parameters = new Object[DEFAULT_PARAMETERS];
+    private int parameterCount;
+    private Throwable throwable;
+    private boolean reserved;
+
+    static ReusableFormattedMessage acquire() {
+
+        final var message = messages.get();
+
+        if (message.reserved)
+            return new ReusableFormattedMessage();
+
+        message.reserved = true;
+
+        return message;
+    }
+
+    void release() {
+
+        Arrays.fill(parameters, 0, parameterCount, null);
+
+        formatter = null;
+        messagePattern = null;
+        parameterCount = 0;
+        throwable = null;
+        reserved = false;
+    }
+
+    ReusableFormattedMessage set(Formatter formatter,
+                                 String messagePattern,
+                                 int arity,
+                                 Object argument1,
+                                 Object argument2,
+                                 Object[] arguments) {
+
+        this.formatter = formatter;
+        this.messagePattern = messagePattern;
+
+        switch (arity) {
+
+            case 1:
+                parameters[0] = argument1;
+                parameterCount = 1;
+                break;
+
+            case 2:
+                parameters[0] = argument1;
+                parameters[1] = argument2;
+                parameterCount = 2;
+                break;
+
+            default:
+                if (arguments == null) {
+
+                    parameterCount = 0;
+                    break;
+                }
+
+                if (arguments.length > parameters.length)
+                    parameters = new Object[arguments.length];
+
+                System.arraycopy(arguments, 0, parameters, 0, arguments.length);
+                parameterCount = arguments.length;
+        }
+
+        // a trailing throwable is never part of the message, as with both formatters
+        if (parameterCount != 0 && parameters[parameterCount - 1] instanceof Throwable) {
+
+            throwable = (Throwable) parameters[parameterCount - 1];
+            parameters[--parameterCount] = null;
+        }
+
+        return this;
+    }
+
+    @Override
+    public void formatTo(StringBuilder buffer) {
+
+        formatter.formatTo(buffer, messagePattern, parameters, parameterCount);
+    }
+
+    @Override
+    public String getFormattedMessage() {
+
+        final var buffer = new StringBuilder();
+
+        formatTo(buffer);
+
+        return buffer.toString();
+    }
+
+    @Override
+    public String getFormat() {
+
+        return messagePattern;
+    }
+
+    @Override
+    public Object[] getParameters() {
+
+        return Arrays.copyOf(parameters, parameterCount);
+    }
+
+    @Override
+    public Throwable getThrowable() {
+
+        return throwable;
+    }
+
+    @Override
+    public Object[] swapParameters(Object[] emptyReplacement) {
+
+        final var result = emptyReplacement.length >= parameterCount ? emptyReplacement : new Object[parameterCount];
+
+        System.arraycopy(parameters, 0, result, 0, parameterCount);
+
+        return result;
+    }
+
+    @Override
+    public short getParameterCount() {
+
+        return (short) parameterCount;
+    }
+
+    @Override
+    public Message memento() {
+
+        return new SimpleMessage(getFormattedMessage());
+    }
+}
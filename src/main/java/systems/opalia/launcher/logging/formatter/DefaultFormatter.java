@@ -1,5 +1,7 @@
 package systems.opalia.launcher.logging.formatter;
 
+import java.util.HashSet;
+import java.util.Set;
 import org.slf4j.helpers.FormattingTuple;
 import org.slf4j.helpers.MessageFormatter;
 
@@ -7,6 +9,9 @@ import org.slf4j.helpers.MessageFormatter;
 public class DefaultFormatter
         implements Formatter {
 
+    private static final String DELIMITER = "{}";
+    private static final char ESCAPE_CHARACTER = '\\';
+
     @Override
     public FormattingTuple format(String messagePattern, Object argument) {
 
@@ -24,4 +29,148 @@ public class DefaultFormatter
 
         return MessageFormatter.arrayFormat(messagePattern, arguments);
     }
+
+    @Override
+    public void formatTo(StringBuilder buffer, String messagePattern, Object[] arguments, int argumentCount) {
+
+        // same rules as org.slf4j.helpers.MessageFormatter, but without intermediate strings
+
+        if (messagePattern == null) {
+
+            buffer.append((String) null);
+            return;
+        }
+
+        var i = 0;
+
+        for (var k = 0; k < argumentCount; k++) {
+
+            final var j = messagePattern.indexOf(DELIMITER, i);
+
+            if (j == -1)
+                break;
+
+            if (isEscapedDelimiter(messagePattern, j)) {
+
+                if (!isDoubleEscapedDelimiter(messagePattern, j)) {
+
+                    // the delimiter is escaped, so the argument is kept for the next one
+                    k--;
+                    buffer.append(messagePattern, i, j - 1);
+                    buffer.append('{');
+                    i = j + 1;
+
+                } else {
+
+                    buffer.append(messagePattern, i, j - 1);
+                    appendArgument(buffer, arguments[k], null);
+                    i = j + 2;
+                }
+
+            } else {
+
+                buffer.append(messagePattern, i, j);
+                appendArgument(buffer, arguments[k], null);
+                i = j + 2;
+            }
+        }
+
+        buffer.append(messagePattern, i, messagePattern.length());
+    }
+
+    private static boolean isEscapedDelimiter(String messagePattern, int index) {
+
+        return index != 0 && messagePattern.charAt(index - 1) == ESCAPE_CHARACTER;
+    }
+
+    private static boolean isDoubleEscapedDelimiter(String messagePattern, int index) {
+
+        return index >= 2 && messagePattern.charAt(index - 2) == ESCAPE_CHARACTER;
+    }
+
+    private static void appendArgument(StringBuilder buffer, Object argument, Set<Object[]> seen) {
+
+        // common types are appended directly to avoid the string produced by toString
+        if (argument == null)
+            buffer.append("null");
+        else if (argument instanceof String)
+            buffer.append((String) argument);
+        else if (argument instanceof Integer)
+            buffer.append(((Integer) argument).intValue());
+        else if (argument instanceof Long)
+            buffer.append(((Long) argument).longValue());
+        else if (argument instanceof Boolean)
+            buffer.append(((Boolean) argument).booleanValue());
+        else if (argument instanceof Character)
+            buffer.append(((Character) argument).charValue());
+        else if (argument instanceof Double)
+            buffer.append(((Double) argument).doubleValue());
+        else if (argument instanceof Float)
+            buffer.append(((Float) argument).floatValue());
+        else if (argument instanceof Short)
+            buffer.append(((Short) argument).shortValue());
+        else if (argument instanceof Byte)
+            buffer.append(((Byte) argument).byteValue());
+        else if (argument.getClass().isArray())
+            appendArray(buffer, argument, seen);
+        else
+            appendObject(buffer, argument);
+    }
+
+    private static void appendObject(StringBuilder buffer, Object argument) {
+
+        try {
+
+            buffer.append(argument.toString());
+
+        } catch (Throwable e) {
+
+            buffer.append("[FAILED toString()]");
+        }
+    }
+
+    private static void appendArray(StringBuilder buffer, Object array, Set<Object[]> seen) {
+
+        if (!(array instanceof Object[])) {
+
+            // primitive arrays are rare in log statements, so their formatting may allocate
+            final var length = java.lang.reflect.Array.getLength(array);
+
+            buffer.append('[');
+
+            for (var i = 0; i < length; i++) {
+
+                if (i != 0)
+                    buffer.append(", ");
+
+                appendArgument(buffer, java.lang.reflect.Array.get(array, i), null);
+            }
+
+            buffer.append(']');
+            return;
+        }
+
+        final var objects = (Object[]) array;
+        final var visited = seen != null ? seen : new HashSet<Object[]>();
+
+        if (!visited.add(objects)) {
+
+            buffer.append("[...]");
+            return;
+        }
+
+        buffer.append('[');
+
+        for (var i = 0; i < objects.length; i++) {
+
+            if (i != 0)
+                buffer.append(", ");
+
+            appendArgument(buffer, objects[i], visited);
+        }
+
+        buffer.append(']');
+
+        visited.remove(objects);
+    }
 }
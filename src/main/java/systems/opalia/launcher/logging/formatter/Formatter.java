@@ -1,5 +1,6 @@
 package systems.opalia.launcher.logging.formatter;
 
+import java.util.Arrays;
 import org.slf4j.helpers.FormattingTuple;
 
 
@@ -10,4 +11,10 @@ public interface Formatter {
     FormattingTuple format(String messagePattern, Object argument1, Object argument2);
 
     FormattingTuple arrayFormat(String messagePattern, Object[] arguments);
+
+    // appends the message to the buffer; the arguments are already free of a trailing throwable
+    default void formatTo(StringBuilder buffer, String messagePattern, Object[] arguments, int argumentCount) {
+
+        buffer.append(arrayFormat(messagePattern, Arrays.copyOf(arguments, argumentCount)).getMessage());
+    }
 }
@@ -7,6 +7,11 @@ import org.slf4j.helpers.FormattingTuple;
 public class PrintfFormatter
         implements Formatter {
 
+    private static final int MAX_BUFFER_CAPACITY = 4096;
+    private static final int MAX_REUSABLE_ARGUMENTS = 8;
+
+    private static final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
     public FormattingTuple format(String messagePattern, Object argument) {
 
         return arrayFormat(messagePattern, new Object[]{argument});
@@ -27,6 +32,44 @@ public class PrintfFormatter
         return new FormattingTuple(String.format(messagePattern, array), array, throwable);
     }
 
+    @Override
+    public void formatTo(StringBuilder buffer, String messagePattern, Object[] arguments, int argumentCount) {
+
+        final var current = state.get();
+
+        // a toString method of an argument may log itself and would otherwise overwrite the buffer
+        if (current.busy) {
+
+            final var array = new Object[argumentCount];
+
+            System.arraycopy(arguments, 0, array, 0, argumentCount);
+            buffer.append(String.format(messagePattern, array));
+            return;
+        }
+
+        current.busy = true;
+
+        // java.util.Formatter reports missing arguments by the array length, so the array must fit exactly
+        final var array = arguments.length == argumentCount ? arguments : current.arguments(argumentCount);
+
+        try {
+
+            if (array != arguments)
+                System.arraycopy(arguments, 0, array, 0, argumentCount);
+
+            current.formatter.format(messagePattern, array);
+            buffer.append(current.buffer);
+
+        } finally {
+
+            if (array != arguments)
+                java.util.Arrays.fill(array, null);
+
+            current.reset();
+            current.busy = false;
+        }
+    }
+
     private Throwable getThrowableCandidate(Object[] array) {
 
         if (array.length == 0)
@@ -51,4 +94,37 @@ public class PrintfFormatter
 
         return trimmed;
     }
+
+    private static final class State {
+
+        private final Object[][] arguments = new Object[MAX_REUSABLE_ARGUMENTS + 1][];
+        private StringBuilder buffer;
+        private java.util.Formatter formatter;
+        private boolean busy;
+
+        private State() {
+
+            for (var i = 0; i < arguments.length; i++)
+                arguments[i] = new Object[i];
+
+            reset();
+        }
+
+        private Object[] arguments(int count) {
+
+            return count < arguments.length ? arguments[count] : new Object[count];
+        }
+
+        private void reset() {
+
+            // a single huge message must not pin its buffer for the lifetime of the thread
+            if (buffer == null || buffer.capacity() > MAX_BUFFER_CAPACITY) {
+
+                buffer = new StringBuilder(256);
+                formatter = new java.util.Formatter(buffer);
+
+            } else
+                buffer.setLength(0);
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+
+public final class BundleMetrics
+        implements BundleMetricsMXBean {
+
+    private final BundleContext bundleContext;
+    private final Latency starts = new Latency();
+    private final Latency stops = new Latency();
+    private final LongAdder startFailures = new LongAdder();
+    private final LongAdder stopTimeouts = new LongAdder();
+
+    public BundleMetrics(BundleContext bundleContext) {
+
+        this.bundleContext = bundleContext;
+    }
+
+    public void recordStart(long nanos, boolean failed) {
+
+        starts.record(nanos);
+
+        if (failed)
+            startFailures.increment();
+    }
+
+    public void recordStop(long nanos) {
+
+        stops.record(nanos);
+    }
+
+    public void recordStopTimeout() {
+
+        stopTimeouts.increment();
+    }
+
+    @Override
+    public Map<String, String> getBundleStates() {
+
+        // read on demand, the framework already tracks the states
+        final var states = new TreeMap<String, String>();
+
+        for (final var bundle : bundleContext.getBundles())
+            states.put(bundle.getSymbolicName() + " " + bundle.getVersion(), toString(bundle.getState()));
+
+        return states;
+    }
+
+    @Override
+    public long getBundleStarts() {
+
+        return starts.getCount();
+    }
+
+    @Override
+    public long getBundleStartFailures() {
+
+        return startFailures.sum();
+    }
+
+    @Override
+    public long getTotalStartTimeMillis() {
+
+        return starts.getTotalMillis();
+    }
+
+    @Override
+    public long getMaxStartTimeMillis() {
+
+        return starts.getMaxMillis();
+    }
+
+    @Override
+    public long getBundleStops() {
+
+        return stops.getCount();
+    }
+
+    @Override
+    public long getBundleStopTimeouts() {
+
+        return stopTimeouts.sum();
+    }
+
+    @Override
+    public long getTotalStopTimeMillis() {
+
+        return stops.getTotalMillis();
+    }
+
+    @Override
+    public long getMaxStopTimeMillis() {
+
+        return stops.getMaxMillis();
+    }
+
+    private static String toString(int state) {
+
+        switch (state) {
+
+            case Bundle.UNINSTALLED:
+                return "UNINSTALLED";
+
+            case Bundle.INSTALLED:
+                return "INSTALLED";
+
+            case Bundle.RESOLVED:
+                return "RESOLVED";
+
+            case Bundle.STARTING:
+                return "STARTING";
+
+            case Bundle.STOPPING:
+                return "STOPPING";
+
+            case Bundle.ACTIVE:
+                return "ACTIVE";
+
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.Map;
+
+
+public interface BundleMetricsMXBean {
+
+    Map<String, String> getBundleStates();
+
+    long getBundleStarts();
+
+    long getBundleStartFailures();
+
+    long getTotalStartTimeMillis();
+
+    long getMaxStartTimeMillis();
+
+    long getBundleStops();
+
+    long getBundleStopTimeouts();
+
+    long getTotalStopTimeMillis();
+
+    long getMaxStopTimeMillis();
+}
@@ -0,0 +1,34 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+final class Latency {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    long getCount() {
+
+        return count.sum();
+    }
+
+    long getTotalMillis() {
+
+        return totalNanos.sum() / 1_000_000;
+    }
+
+    long getMaxMillis() {
+
+        return maxNanos.get() / 1_000_000;
+    }
+}
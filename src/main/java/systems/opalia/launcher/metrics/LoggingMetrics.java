@@ -0,0 +1,90 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.Level;
+
+
+public final class LoggingMetrics
+        implements LoggingMetricsMXBean {
+
+    // one striped counter per level, so concurrent logging threads do not contend on a shared cache line
+    private final LongAdder traceEvents = new LongAdder();
+    private final LongAdder debugEvents = new LongAdder();
+    private final LongAdder infoEvents = new LongAdder();
+    private final LongAdder warnEvents = new LongAdder();
+    private final LongAdder errorEvents = new LongAdder();
+    private final LongAdder auditEvents = new LongAdder();
+
+    public void recordEvent(Level level) {
+
+        switch (level.getStandardLevel()) {
+
+            case TRACE:
+                traceEvents.increment();
+                break;
+
+            case DEBUG:
+                debugEvents.increment();
+                break;
+
+            case INFO:
+                infoEvents.increment();
+                break;
+
+            case WARN:
+                warnEvents.increment();
+                break;
+
+            case ERROR:
+            case FATAL:
+                errorEvents.increment();
+                break;
+
+            default:
+                auditEvents.increment();
+        }
+    }
+
+    @Override
+    public long getTraceEvents() {
+
+        return traceEvents.sum();
+    }
+
+    @Override
+    public long getDebugEvents() {
+
+        return debugEvents.sum();
+    }
+
+    @Override
+    public long getInfoEvents() {
+
+        return infoEvents.sum();
+    }
+
+    @Override
+    public long getWarnEvents() {
+
+        return warnEvents.sum();
+    }
+
+    @Override
+    public long getErrorEvents() {
+
+        return errorEvents.sum();
+    }
+
+    @Override
+    public long getAuditEvents() {
+
+        return auditEvents.sum();
+    }
+
+    @Override
+    public long getTotalEvents() {
+
+        return getTraceEvents() + getDebugEvents() + getInfoEvents() + getWarnEvents() + getErrorEvents() +
+                getAuditEvents();
+    }
+}
@@ -0,0 +1,19 @@
+package systems.opalia.launcher.metrics;
+
+
+public interface LoggingMetricsMXBean {
+
+    long getTraceEvents();
+
+    long getDebugEvents();
+
+    long getInfoEvents();
+
+    long getWarnEvents();
+
+    long getErrorEvents();
+
+    long getAuditEvents();
+
+    long getTotalEvents();
+}
@@ -0,0 +1,80 @@
+package systems.opalia.launcher.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+public final class MetricsRegistry {
+
+    public static final String DOMAIN = "systems.opalia.launcher";
+
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private final MBeanServer server;
+    private final List<ObjectName> names = new ArrayList<>();
+
+    public MetricsRegistry() {
+
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public MetricsRegistry(MBeanServer server) {
+
+        this.server = server;
+    }
+
+    public synchronized void register(String type, Object mbean) {
+
+        try {
+
+            var name = new ObjectName(DOMAIN, "type", type);
+
+            // the name of another launcher in the same JVM is left to its owner
+            while (true) {
+
+                try {
+
+                    server.registerMBean(mbean, name);
+                    break;
+
+                } catch (InstanceAlreadyExistsException e) {
+
+                    name = new ObjectName(DOMAIN, new Hashtable<>(Map.of(
+                            "type", type,
+                            "instance", String.valueOf(instances.incrementAndGet()))));
+                }
+            }
+
+            names.add(name);
+
+        } catch (JMException e) {
+
+            throw new IllegalStateException("Cannot register MBean of type " + type, e);
+        }
+    }
+
+    public synchronized void unregisterAll() {
+
+        for (final var name : names) {
+
+            try {
+
+                server.unregisterMBean(name);
+
+            } catch (JMException e) {
+
+                // already unregistered
+            }
+        }
+
+        names.clear();
+    }
+}
@@ -0,0 +1,109 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+public final class ResolverMetrics
+        implements ResolverMetricsMXBean {
+
+    private final Latency resolutions = new Latency();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder artifacts = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongSupplier cacheHits;
+    private final LongSupplier cacheMisses;
+    private final LongSupplier sharedRequests;
+
+    public ResolverMetrics() {
+
+        this(() -> 0, () -> 0, () -> 0);
+    }
+
+    public ResolverMetrics(LongSupplier cacheHits, LongSupplier cacheMisses, LongSupplier sharedRequests) {
+
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.sharedRequests = sharedRequests;
+    }
+
+    public void recordResolution(long nanos, int resolvedArtifacts, boolean failed) {
+
+        resolutions.record(nanos);
+        artifacts.add(resolvedArtifacts);
+
+        if (failed)
+            failures.increment();
+    }
+
+    public void recordHedge(boolean won) {
+
+        hedgedRequests.increment();
+
+        if (won)
+            hedgeWins.increment();
+    }
+
+    @Override
+    public long getResolutions() {
+
+        return resolutions.getCount();
+    }
+
+    @Override
+    public long getResolutionFailures() {
+
+        return failures.sum();
+    }
+
+    @Override
+    public long getResolvedArtifacts() {
+
+        return artifacts.sum();
+    }
+
+    @Override
+    public long getTotalResolutionTimeMillis() {
+
+        return resolutions.getTotalMillis();
+    }
+
+    @Override
+    public long getMaxResolutionTimeMillis() {
+
+        return resolutions.getMaxMillis();
+    }
+
+    @Override
+    public long getCacheHits() {
+
+        return cacheHits.getAsLong();
+    }
+
+    @Override
+    public long getCacheMisses() {
+
+        return cacheMisses.getAsLong();
+    }
+
+    // requests that waited for a concurrent resolution of the same coordinates
+    @Override
+    public long getSharedRequests() {
+
+        return sharedRequests.getAsLong();
+    }
+
+    @Override
+    public long getHedgedRequests() {
+
+        return hedgedRequests.sum();
+    }
+
+    // hedged requests that completed before the request they were racing
+    @Override
+    public long getHedgeWins() {
+
+        return hedgeWins.sum();
+    }
+}
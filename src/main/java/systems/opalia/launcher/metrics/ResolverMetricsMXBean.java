@@ -0,0 +1,25 @@
+package systems.opalia.launcher.metrics;
+
+
+public interface ResolverMetricsMXBean {
+
+    long getResolutions();
+
+    long getResolutionFailures();
+
+    long getResolvedArtifacts();
+
+    long getTotalResolutionTimeMillis();
+
+    long getMaxResolutionTimeMillis();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getSharedRequests();
+
+    long getHedgedRequests();
+
+    long getHedgeWins();
+}
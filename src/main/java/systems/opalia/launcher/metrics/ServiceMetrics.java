@@ -0,0 +1,67 @@
+package systems.opalia.launcher.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+public final class ServiceMetrics
+        implements ServiceMetricsMXBean {
+
+    private final LongAdder registrations = new LongAdder();
+    private final LongAdder unregistrations = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupMisses = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+
+    public void recordRegistration() {
+
+        registrations.increment();
+    }
+
+    public void recordUnregistrations(int count) {
+
+        unregistrations.add(count);
+    }
+
+    public void recordLookup(boolean found) {
+
+        lookups.increment();
+
+        if (!found)
+            lookupMisses.increment();
+    }
+
+    public void recordReleases(int count) {
+
+        releases.add(count);
+    }
+
+    @Override
+    public long getServiceRegistrations() {
+
+        return registrations.sum();
+    }
+
+    @Override
+    public long getServiceUnregistrations() {
+
+        return unregistrations.sum();
+    }
+
+    @Override
+    public long getServiceLookups() {
+
+        return lookups.sum();
+    }
+
+    @Override
+    public long getServiceLookupMisses() {
+
+        return lookupMisses.sum();
+    }
+
+    @Override
+    public long getServiceReleases() {
+
+        return releases.sum();
+    }
+}
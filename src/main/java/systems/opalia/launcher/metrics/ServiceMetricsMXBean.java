@@ -0,0 +1,15 @@
+package systems.opalia.launcher.metrics;
+
+
+public interface ServiceMetricsMXBean {
+
+    long getServiceRegistrations();
+
+    long getServiceUnregistrations();
+
+    long getServiceLookups();
+
+    long getServiceLookupMisses();
+
+    long getServiceReleases();
+}
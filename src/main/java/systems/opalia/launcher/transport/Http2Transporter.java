@@ -0,0 +1,289 @@
+package systems.opalia.launcher.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.util.ConfigUtils;
+
+
+final class Http2Transporter
+        extends AbstractTransporter {
+
+    private static final Map<String, String> CHECKSUM_HEADERS = Map.of(
+            "SHA-1", "X-Checksum-Sha1",
+            "MD5", "X-Checksum-Md5");
+    private static final int MAX_REDIRECTS = 5;
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final Map<String, String> headers = new HashMap<>();
+
+    Http2Transporter(RepositorySystemSession session, RemoteRepository repository, HttpClient client) {
+
+        final var url = repository.getUrl();
+
+        this.client = client;
+        this.baseUri = URI.create(url.endsWith("/") ? url : url + "/");
+        this.requestTimeout = Duration.ofMillis(ConfigUtils.getInteger(session,
+                ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                ConfigurationProperties.REQUEST_TIMEOUT + "." + repository.getId(),
+                ConfigurationProperties.REQUEST_TIMEOUT));
+
+        headers.put("User-Agent", ConfigUtils.getString(session,
+                ConfigurationProperties.DEFAULT_USER_AGENT,
+                ConfigurationProperties.USER_AGENT));
+
+        final var configured = ConfigUtils.getMap(session, null,
+                ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(),
+                ConfigurationProperties.HTTP_HEADERS);
+
+        if (configured != null)
+            configured.forEach((key, value) -> headers.put(String.valueOf(key), String.valueOf(value)));
+
+        final var authentication = AuthenticationContext.forRepository(session, repository);
+
+        try {
+
+            if (authentication != null && authentication.get(AuthenticationContext.USERNAME) != null) {
+
+                final var credentials = authentication.get(AuthenticationContext.USERNAME) + ":" +
+                        authentication.get(AuthenticationContext.PASSWORD);
+
+                // preemptive, so that every multiplexed request is authorized on the first attempt
+                headers.put("Authorization", "Basic " +
+                        Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+            }
+
+        } finally {
+
+            AuthenticationContext.close(authentication);
+        }
+    }
+
+    HttpClient getClient() {
+
+        return client;
+    }
+
+    @Override
+    public int classify(Throwable error) {
+
+        if (error instanceof HttpStatusException && ((HttpStatusException) error).getStatusCode() == 404)
+            return ERROR_NOT_FOUND;
+
+        return ERROR_OTHER;
+    }
+
+    @Override
+    protected void implPeek(PeekTask task)
+            throws Exception {
+
+        final var response = send(task.getLocation(),
+                x -> x.method("HEAD", HttpRequest.BodyPublishers.noBody()),
+                HttpResponse.BodyHandlers.discarding());
+
+        checkStatus(response.statusCode());
+    }
+
+    @Override
+    protected void implGet(GetTask task)
+            throws Exception {
+
+        get(task, task.getDataFile() != null && task.getResumeOffset() > 0);
+    }
+
+    @Override
+    protected void implPut(PutTask task)
+            throws Exception {
+
+        final var body = HttpRequest.BodyPublishers.ofInputStream(() -> {
+
+            try {
+
+                return task.newInputStream();
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+        });
+        task.getListener().transportStarted(0, task.getDataLength());
+
+        final var response = send(task.getLocation(),
+                x -> x.PUT(HttpRequest.BodyPublishers.fromPublisher(body, task.getDataLength())),
+                HttpResponse.BodyHandlers.discarding());
+
+        checkStatus(response.statusCode());
+    }
+
+    @Override
+    protected void implClose() {
+
+        // the client and its connections are shared with other transporters of the factory
+    }
+
+    private void get(GetTask task, boolean resume)
+            throws Exception {
+
+        final var response = send(task.getLocation(), x -> {
+
+            if (resume) {
+
+                // continue a partial download only if the remote file has not changed since
+                x.header("Range", "bytes=" + task.getResumeOffset() + "-");
+                x.header("If-Unmodified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        Instant.ofEpochMilli(task.getDataFile().lastModified() - 60_000).atZone(ZoneOffset.UTC)));
+            }
+
+            return x.GET();
+
+        }, HttpResponse.BodyHandlers.ofInputStream());
+        final var status = response.statusCode();
+
+        // a changed remote file or a range beyond its end is downloaded again from the beginning
+        if (resume && (status == 412 || status == 416)) {
+
+            discard(response.body());
+            get(task, false);
+            return;
+        }
+
+        if (status >= 300) {
+
+            discard(response.body());
+            checkStatus(status);
+        }
+
+        for (final var entry : CHECKSUM_HEADERS.entrySet())
+            response.headers().firstValue(entry.getValue()).ifPresent(x -> task.setChecksum(entry.getKey(), x));
+
+        final var partial = resume && status == 206;
+        final var length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+        // the body is streamed into the data file of the task without buffering the artifact on the heap
+        utilGet(task, response.body(), true, length, partial);
+    }
+
+    private <T> HttpResponse<T> send(URI location,
+                                     UnaryOperator<HttpRequest.Builder> method,
+                                     HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+
+        var uri = baseUri.resolve(location);
+
+        // redirects are followed here instead of by the client, so that credentials never leave the repository origin
+        for (var i = 0; ; i++) {
+
+            final var response = client.send(method.apply(newRequest(uri)).build(), x -> isRedirect(x.statusCode())
+                    ? HttpResponse.BodySubscribers.replacing(null)
+                    : handler.apply(x));
+            final var status = response.statusCode();
+
+            if (!isRedirect(status))
+                return response;
+
+            final var target = response.headers().firstValue("Location");
+
+            if (target.isEmpty() || i == MAX_REDIRECTS)
+                throw new HttpStatusException(status);
+
+            final var next = uri.resolve(target.get());
+
+            // like the normal redirect policy of the client, a downgrade from HTTPS to HTTP is not followed
+            if ("https".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(next.getScheme()))
+                throw new HttpStatusException(status);
+
+            uri = next;
+        }
+    }
+
+    private HttpRequest.Builder newRequest(URI uri) {
+
+        final var builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        final var trusted = isSameOrigin(baseUri, uri);
+
+        headers.forEach((key, value) -> {
+
+            if (trusted || !key.equalsIgnoreCase("Authorization"))
+                builder.header(key, value);
+        });
+
+        return builder;
+    }
+
+    private static boolean isRedirect(int status) {
+
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    private static boolean isSameOrigin(URI first, URI second) {
+
+        return String.valueOf(first.getScheme()).equalsIgnoreCase(String.valueOf(second.getScheme())) &&
+                String.valueOf(first.getHost()).equalsIgnoreCase(String.valueOf(second.getHost())) &&
+                getPort(first) == getPort(second);
+    }
+
+    private static int getPort(URI uri) {
+
+        if (uri.getPort() != -1)
+            return uri.getPort();
+
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static void checkStatus(int status)
+            throws HttpStatusException {
+
+        if (status >= 300)
+            throw new HttpStatusException(status);
+    }
+
+    private static void discard(InputStream body)
+            throws IOException {
+
+        try (body) {
+
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    static final class HttpStatusException
+            extends IOException {
+
+        private final int statusCode;
+
+        HttpStatusException(int statusCode) {
+
+            super("Unexpected HTTP status " + statusCode);
+            this.statusCode = statusCode;
+        }
+
+        int getStatusCode() {
+
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package systems.opalia.launcher.transport;
+
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.util.ConfigUtils;
+
+
+public final class Http2TransporterFactory
+        implements TransporterFactory {
+
+    private static final float PRIORITY = 10.0f;
+
+    // clients own the connection pools and outlive the repository system sessions
+    private final ConcurrentMap<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository)
+            throws NoTransporterException {
+
+        final var protocol = repository.getProtocol();
+
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol))
+            throw new NoTransporterException(repository);
+
+        return new Http2Transporter(session, repository, getClient(session, repository));
+    }
+
+    @Override
+    public float getPriority() {
+
+        return PRIORITY;
+    }
+
+    private HttpClient getClient(RepositorySystemSession session, RemoteRepository repository) {
+
+        final var proxy = repository.getProxy();
+        final var connectTimeout = ConfigUtils.getInteger(session,
+                ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                ConfigurationProperties.CONNECT_TIMEOUT + "." + repository.getId(),
+                ConfigurationProperties.CONNECT_TIMEOUT);
+        final var key = (proxy == null ? "" : proxy.getHost() + ":" + proxy.getPort()) + "|" + connectTimeout;
+
+        return clients.computeIfAbsent(key, x -> {
+
+            final var builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofMillis(connectTimeout));
+
+            if (proxy != null)
+                builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+
+            return builder.build();
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import systems.opalia.launcher.exception.UncheckedResolutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class ArtifactResolverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resolveTransitive_collects_shared_dependencies_once()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+
+        createArtifact(repository, "a", "1.0.0", "c:1.0.0");
+        createArtifact(repository, "b", "1.0.0", "c:1.0.0", "e:1.0.0");
+        createArtifact(repository, "c", "1.0.0", "d:1.0.0");
+        createArtifact(repository, "d", "1.0.0");
+        createArtifact(repository, "e", "1.0.0", "d:1.0.0");
+
+        final var resolver = new ArtifactResolver.Builder(new LinkedHashMap<>(), repository.toString())
+                .setThreads(2)
+                .build();
+        final var artifacts = resolver.resolveTransitive(
+                List.of(new DefaultArtifact("org.example:a:1.0.0"), new DefaultArtifact("org.example:b:1.0.0")),
+                JavaScopes.COMPILE,
+                List.of(JavaScopes.COMPILE, JavaScopes.RUNTIME));
+        final var names = artifacts.stream().map(Artifact::getArtifactId).collect(Collectors.toList());
+
+        assertThat(names, containsInAnyOrder("a", "b", "c", "d", "e"));
+        assertThat(names.indexOf("d"), lessThan(names.indexOf("c")));
+        assertThat(names.indexOf("c"), lessThan(names.indexOf("a")));
+        assertThat(names.indexOf("e"), lessThan(names.indexOf("b")));
+        assertThat(artifacts.stream().allMatch(x -> x.getFile() != null && x.getFile().isFile()), is(true));
+        assertThat(resolver.getMetrics().getResolvedArtifacts(), equalTo(5L));
+    }
+
+    @Test
+    void resolve_fails_only_for_missing_artifacts()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+
+        createArtifact(repository, "a", "1.0.0");
+
+        final var resolver = new ArtifactResolver.Builder(new LinkedHashMap<>(), repository.toString())
+                .setThreads(2)
+                .build();
+        final var failure = assertThrows(UncheckedResolutionException.class, () -> resolver.resolve(
+                List.of(new DefaultArtifact("org.example:a:1.0.0"), new DefaultArtifact("org.example:b:1.0.0"))));
+
+        assertThat(failure.getMessage(), containsString("Cannot resolve 1 of 2 artifacts"));
+        assertThat(failure.getMessage(), containsString("org.example:b:jar:1.0.0"));
+        assertThat(resolver.resolve(new DefaultArtifact("org.example:a:1.0.0")).getFile().isFile(), is(true));
+    }
+
+    @Test
+    void resolve_checks_for_updates_once_per_session()
+            throws Exception {
+
+        final var remote = directory.resolve("remote");
+        final var policy = new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_ALWAYS,
+                RepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+        final var repositories = List.of(new RemoteRepository.Builder("remote", "default", remote.toUri().toString())
+                .setPolicy(policy)
+                .build());
+        final var local = new LocalRepository(directory.resolve("local").toFile());
+        final var artifact = new DefaultArtifact("org.example:a:1.0.0-SNAPSHOT");
+
+        deploySnapshot(remote, "a", 1);
+
+        final var resolver = new ArtifactResolver.Builder(repositories, local).build();
+
+        assertThat(resolver.resolve(artifact).getVersion(), endsWith("-1"));
+
+        deploySnapshot(remote, "a", 2);
+
+        // the shared session does not check the metadata again, a new session does
+        assertThat(resolver.resolve(artifact).getVersion(), endsWith("-1"));
+        assertThat(new ArtifactResolver.Builder(repositories, local).build().resolve(artifact).getVersion(),
+                endsWith("-2"));
+    }
+
+    private static void deploySnapshot(Path repository, String name, int build)
+            throws IOException {
+
+        final var base = repository.resolve("org/example").resolve(name).resolve("1.0.0-SNAPSHOT");
+        final var metadata = new StringBuilder();
+
+        metadata.append("<metadata><groupId>org.example</groupId>");
+        metadata.append("<artifactId>").append(name).append("</artifactId>");
+        metadata.append("<version>1.0.0-SNAPSHOT</version><versioning><snapshot>");
+        metadata.append("<timestamp>20260101.000000</timestamp>");
+        metadata.append("<buildNumber>").append(build).append("</buildNumber>");
+        metadata.append("</snapshot></versioning></metadata>");
+
+        Files.createDirectories(base);
+        Files.writeString(base.resolve("maven-metadata.xml"), metadata);
+        Files.writeString(base.resolve(name + "-1.0.0-20260101.000000-" + build + ".jar"), name);
+    }
+
+    private static void createArtifact(Path repository, String name, String version, String... dependencies)
+            throws IOException {
+
+        final var base = repository.resolve("org/example").resolve(name).resolve(version);
+        final var pom = new StringBuilder();
+
+        pom.append("<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId>");
+        pom.append("<artifactId>").append(name).append("</artifactId>");
+        pom.append("<version>").append(version).append("</version><dependencies>");
+
+        for (final var dependency : dependencies) {
+
+            final var parts = dependency.split(":");
+
+            pom.append("<dependency><groupId>org.example</groupId>");
+            pom.append("<artifactId>").append(parts[0]).append("</artifactId>");
+            pom.append("<version>").append(parts[1]).append("</version></dependency>");
+        }
+
+        pom.append("</dependencies></project>");
+
+        Files.createDirectories(base);
+        Files.writeString(base.resolve(name + "-" + version + ".pom"), pom);
+        Files.writeString(base.resolve(name + "-" + version + ".jar"), name);
+    }
+}
@@ -0,0 +1,127 @@
+package systems.opalia.launcher;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class ArtifactStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void get_returns_stored_blobs_after_reopening()
+            throws Exception {
+
+        final var files = new LinkedHashMap<String, Path>();
+
+        // more entries than fit into a single comparison, in unsorted order
+        for (var i = 99; i >= 0; i--)
+            files.put("org.example:artifact-" + i + ":jar:1.0." + i,
+                    Files.writeString(directory.resolve(i + ".jar"), "content " + i));
+
+        new ArtifactStore(directory.resolve("store")).put(files);
+
+        final var store = new ArtifactStore(directory.resolve("store"));
+
+        for (final var entry : files.entrySet()) {
+
+            final var blob = store.get(entry.getKey()).orElseThrow();
+
+            assertThat(blob.startsWith(directory.resolve("store")), is(true));
+            assertThat(Files.readString(blob), equalTo(Files.readString(entry.getValue())));
+        }
+
+        assertThat(store.get("org.example:artifact-100:jar:1.0.100").isPresent(), is(false));
+        assertThat(store.get("org.example:artifact-1:jar:1.0").isPresent(), is(false));
+    }
+
+    @Test
+    void put_merges_with_existing_index()
+            throws Exception {
+
+        final var store = new ArtifactStore(directory.resolve("store"));
+
+        assertThat(store.get("org.example:a:jar:1.0.0").isPresent(), is(false));
+
+        store.put(Map.of("org.example:a:jar:1.0.0", Files.writeString(directory.resolve("a.jar"), "a")));
+        store.put(Map.of("org.example:b:jar:1.0.0", Files.writeString(directory.resolve("b.jar"), "b")));
+
+        assertThat(store.get("org.example:a:jar:1.0.0").isPresent(), is(true));
+        assertThat(store.get("org.example:b:jar:1.0.0").isPresent(), is(true));
+    }
+
+    @Test
+    void get_ignores_damaged_blobs()
+            throws Exception {
+
+        final var store = new ArtifactStore(directory.resolve("store"));
+
+        store.put(Map.of("org.example:a:jar:1.0.0", Files.writeString(directory.resolve("a.jar"), "content")));
+
+        Files.writeString(store.get("org.example:a:jar:1.0.0").orElseThrow(), "truncated");
+
+        assertThat(store.get("org.example:a:jar:1.0.0").isPresent(), is(false));
+    }
+
+    @Test
+    void put_serializes_concurrent_writers_of_same_process()
+            throws Exception {
+
+        final var failures = new ConcurrentLinkedQueue<Throwable>();
+        final var threads = new ArrayList<Thread>();
+
+        for (var i = 0; i < 8; i++) {
+
+            final var name = "artifact-" + i;
+            final var files = Map.of("org.example:" + name + ":jar:1.0.0",
+                    Files.writeString(directory.resolve(name + ".jar"), name));
+
+            // each writer uses its own store instance, like separate launchers in one JVM
+            final var thread = new Thread(() -> new ArtifactStore(directory.resolve("store")).put(files));
+
+            thread.setUncaughtExceptionHandler((x, e) -> failures.add(e));
+            threads.add(thread);
+        }
+
+        threads.forEach(Thread::start);
+
+        for (final var thread : threads)
+            thread.join();
+
+        final var store = new ArtifactStore(directory.resolve("store"));
+
+        assertThat(failures, empty());
+
+        for (var i = 0; i < 8; i++)
+            assertThat(store.get("org.example:artifact-" + i + ":jar:1.0.0").isPresent(), is(true));
+    }
+
+    @Test
+    void damaged_index_is_treated_as_miss()
+            throws Exception {
+
+        final var index = ByteBuffer.allocate(16).putInt(0x4f4c4153).putInt(1).putInt(1000).putInt(-5);
+
+        Files.createDirectories(directory.resolve("store"));
+        Files.write(directory.resolve("store").resolve("index"), index.array());
+
+        final var store = new ArtifactStore(directory.resolve("store"));
+
+        assertThat(store.get("org.example:a:jar:1.0.0").isPresent(), is(false));
+
+        store.put(Map.of("org.example:a:jar:1.0.0", Files.writeString(directory.resolve("a.jar"), "a")));
+
+        assertThat(store.get("org.example:a:jar:1.0.0").isPresent(), is(true));
+    }
+}
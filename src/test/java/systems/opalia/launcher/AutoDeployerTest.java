@@ -0,0 +1,90 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static systems.opalia.launcher.TestBundles.createBundle;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class AutoDeployerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void watcher_installs_updates_and_uninstalls_bundles()
+            throws Exception {
+
+        final var deployDirectory = Files.createDirectories(directory.resolve("deploy"));
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try (final var deployer = new AutoDeployer(framework.getBundleContext(), deployDirectory, 100)) {
+
+            final var context = framework.getBundleContext();
+            final var jar = deployDirectory.resolve("a.jar");
+
+            deployBundle(jar, "a", "1.0.0", System.currentTimeMillis());
+
+            await(() -> find(context, "a").map(x -> x.getState() == Bundle.ACTIVE).orElse(false));
+
+            // a copy that preserves an older modification time is still a change
+            deployBundle(jar, "a", "2.0.0", System.currentTimeMillis() - 3600000);
+
+            await(() -> find(context, "a").map(x -> x.getVersion().getMajor() == 2).orElse(false));
+
+            Files.delete(jar);
+
+            await(() -> find(context, "a").isEmpty());
+
+            assertThat(context.getBundles().length, equalTo(1));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    private static Optional<Bundle> find(BundleContext context, String name) {
+
+        return Arrays.stream(context.getBundles())
+                .filter(x -> ("org.example." + name).equals(x.getSymbolicName()))
+                .findFirst();
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+
+        final var deadline = System.currentTimeMillis() + 10000;
+
+        while (!condition.getAsBoolean()) {
+
+            assertThat("condition not met in time", System.currentTimeMillis() < deadline, is(true));
+            Thread.sleep(50);
+        }
+    }
+
+    private void deployBundle(Path file, String name, String version, long modified)
+            throws IOException {
+
+        // written outside the deploy directory and moved in, so the watcher never sees a partial file
+        final var temporary = createBundle(directory.resolve(name + "-" + version + ".tmp"), name, version, Map.of());
+
+        Files.setLastModifiedTime(temporary, FileTime.fromMillis(modified));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
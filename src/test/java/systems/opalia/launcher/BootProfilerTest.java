@@ -0,0 +1,60 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class BootProfilerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spans_are_recorded_per_category()
+            throws Exception {
+
+        final var profiler = new BootProfiler();
+
+        try (final var span = profiler.begin(BootProfiler.CATEGORY_PHASE, "outer")) {
+
+            try (final var inner = profiler.begin(BootProfiler.CATEGORY_BUNDLE_START, "bundle")) {
+
+                Thread.sleep(5);
+            }
+        }
+
+        final var entries = profiler.getEntries();
+
+        assertThat(entries, hasSize(2));
+        assertThat(entries.get(0).getName(), equalTo("outer"));
+        assertThat(entries.get(0).getWallNanos(), greaterThanOrEqualTo(entries.get(1).getWallNanos()));
+        assertThat(entries.get(1).getWallNanos(), greaterThanOrEqualTo(5_000_000L));
+        assertThat(profiler.getEntries(BootProfiler.CATEGORY_BUNDLE_START), hasSize(1));
+    }
+
+    @Test
+    void write_json_and_trace_events()
+            throws Exception {
+
+        final var profiler = new BootProfiler();
+        final var json = directory.resolve("profile.json");
+        final var trace = directory.resolve("trace.json");
+
+        try (final var span = profiler.begin(BootProfiler.CATEGORY_PHASE, "quoted \"name\"")) {
+
+            profiler.write(json, BootProfiler.Format.JSON);
+        }
+
+        profiler.write(json, BootProfiler.Format.JSON);
+        profiler.write(trace, BootProfiler.Format.CHROME);
+
+        assertThat(Files.readString(json), containsString("\"name\":\"quoted \\\"name\\\"\""));
+        assertThat(Files.readString(trace), containsString("\"ph\":\"X\""));
+        assertThat(Files.readString(trace), containsString("\"thread_name\""));
+    }
+}
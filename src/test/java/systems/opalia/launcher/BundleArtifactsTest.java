@@ -0,0 +1,116 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import systems.opalia.launcher.exception.UncheckedResolutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static systems.opalia.launcher.TestBundles.createBundle;
+
+
+class BundleArtifactsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void isBundle_requires_symbolic_name()
+            throws Exception {
+
+        assertThat(BundleArtifacts.isBundle(createBundleArtifact("a")), is(true));
+        assertThat(BundleArtifacts.isBundle(createLibraryArtifact("b")), is(false));
+        assertThat(BundleArtifacts.isBundle(new DefaultArtifact("org.example:c:1.0.0")
+                .setFile(Files.writeString(directory.resolve("c.jar"), "no archive").toFile())), is(false));
+    }
+
+    @Test
+    void filterBundles_skips_libraries_but_keeps_requested_roots()
+            throws Exception {
+
+        final var root = createLibraryArtifact("root");
+        final var bundle = createBundleArtifact("bundle");
+        final var library = createLibraryArtifact("library");
+
+        // the version of a requested root may differ after conflict resolution
+        final var artifacts = BundleArtifacts.filterBundles(
+                List.of(new DefaultArtifact("org.example:root:0.9.0")),
+                List.of(root, bundle, library));
+
+        assertThat(artifacts, contains(root, bundle));
+    }
+
+    @Test
+    void resolve_writes_and_reads_the_lock_file()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+
+        Files.createDirectories(repository.resolve("org/example/a/1.0.0"));
+        createBundle(repository.resolve("org/example/a/1.0.0/a-1.0.0.jar"), "a", "1.0.0", Map.of());
+
+        final var written = new BundleArtifacts(new ArtifactResolver(new LinkedHashMap<>(), repository.toString()),
+                coordinates, BundleArtifacts.Resolution.DIRECT, lockFile, LockFile.Mode.WRITE).resolve();
+
+        // a read from the lock file does not need the repository
+        final var read = new BundleArtifacts(new ArtifactResolver(new LinkedHashMap<>(), directory.toString()),
+                coordinates, BundleArtifacts.Resolution.DIRECT, lockFile, LockFile.Mode.READ).resolve();
+
+        assertThat(written, hasSize(1));
+        assertThat(read, hasSize(1));
+        assertThat(read.get(0).getFile(), equalTo(written.get(0).getFile()));
+    }
+
+    @Test
+    void verifyChecksums_rejects_modified_files()
+            throws Exception {
+
+        final var artifact = createBundleArtifact("a");
+        final var file = artifact.getFile().toPath();
+        final var checksumFile = file.resolveSibling(file.getFileName() + ".sha1");
+
+        Files.writeString(checksumFile, Checksums.digest(file, "SHA-1") + "  a.jar");
+        BundleArtifacts.verifyChecksums(List.of(artifact));
+
+        Files.writeString(checksumFile, "0000000000000000000000000000000000000000");
+
+        assertThrows(UncheckedResolutionException.class, () -> BundleArtifacts.verifyChecksums(List.of(artifact)));
+    }
+
+    private Artifact createBundleArtifact(String name)
+            throws Exception {
+
+        final var file = createBundle(directory.resolve(name + ".jar"), name, "1.0.0", Map.of());
+
+        return new DefaultArtifact("org.example:" + name + ":1.0.0").setFile(file.toFile());
+    }
+
+    private Artifact createLibraryArtifact(String name)
+            throws Exception {
+
+        final var file = directory.resolve(name + ".jar");
+        final var manifest = new Manifest();
+
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+        try (final var out = new JarOutputStream(Files.newOutputStream(file), manifest)) {
+
+            out.flush();
+        }
+
+        return new DefaultArtifact("org.example:" + name + ":1.0.0").setFile(file.toFile());
+    }
+}
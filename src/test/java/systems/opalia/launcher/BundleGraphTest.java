@@ -0,0 +1,98 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.FrameworkWiring;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static systems.opalia.launcher.TestBundles.createBundle;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class BundleGraphTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void layers_follow_package_wiring()
+            throws Exception {
+
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var a = install(context, "a", Map.of(Constants.EXPORT_PACKAGE, "org.example.a"));
+            final var b = install(context, "b", Map.of(
+                    Constants.IMPORT_PACKAGE, "org.example.a",
+                    Constants.EXPORT_PACKAGE, "org.example.b"));
+            final var c = install(context, "c", Map.of(Constants.IMPORT_PACKAGE, "org.example.b"));
+            final var d = install(context, "d", Map.of());
+
+            framework.adapt(FrameworkWiring.class).resolveBundles(null);
+
+            final var graph = BundleGraph.of(List.of(a, b, c, d));
+
+            assertThat(graph.getLayers(), equalTo(List.of(List.of(a, d), List.of(b), List.of(c))));
+            assertThat(graph.getProviders(c), contains(b));
+            assertThat(graph.getConsumers(a), contains(b));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void cycle_is_broken_inside_its_component()
+            throws Exception {
+
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+
+            // w is installed first but is no member of the cycle, so it keeps its dependency on x
+            final var w = install(context, "w", Map.of(Constants.IMPORT_PACKAGE, "org.example.x"));
+            final var x = install(context, "x", Map.of(
+                    Constants.IMPORT_PACKAGE, "org.example.y",
+                    Constants.EXPORT_PACKAGE, "org.example.x"));
+            final var y = install(context, "y", Map.of(
+                    Constants.IMPORT_PACKAGE, "org.example.x",
+                    Constants.EXPORT_PACKAGE, "org.example.y"));
+
+            framework.adapt(FrameworkWiring.class).resolveBundles(null);
+
+            final var graph = BundleGraph.of(List.of(w, x, y));
+
+            assertThat(graph.getLayers(), hasSize(2));
+            assertThat(graph.getLayers().get(0), contains(x));
+            assertThat(graph.getLayers().get(1), containsInAnyOrder(w, y));
+            assertThat(graph.getProviders(w), contains(x));
+            assertThat(graph.getProviders(x), empty());
+            assertThat(graph.getProviders(y), contains(x));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    private Bundle install(BundleContext context, String name, Map<String, String> headers)
+            throws Exception {
+
+        final var file = createBundle(directory.resolve("repository").resolve(name + ".jar"), name, "1.0.0", headers);
+
+        return context.installBundle(file.toUri().toString());
+    }
+}
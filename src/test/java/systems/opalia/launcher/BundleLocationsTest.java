@@ -0,0 +1,81 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Collectors;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class BundleLocationsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void toLocation_depends_on_mode()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a-1.0.0.jar"), "content");
+        final var artifact = new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile());
+        final var links = directory.resolve("links");
+
+        assertThat(new BundleLocations(BundleLocations.Mode.COPY, links).toLocation(artifact),
+                equalTo("file://" + jar));
+        assertThat(new BundleLocations(BundleLocations.Mode.REFERENCE, links).toLocation(artifact),
+                equalTo("reference:file:" + jar));
+        assertThat(Files.exists(links), is(false));
+    }
+
+    @Test
+    void toLocation_links_artifact()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a-1.0.0.jar"), "content");
+        final var artifact = new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile());
+        final var locations = new BundleLocations(BundleLocations.Mode.LINK, directory.resolve("links"));
+
+        // a second installation keeps the previous link
+        locations.toLocation(artifact);
+
+        final var location = locations.toLocation(artifact);
+        final var link = Paths.get(location.substring("reference:file:".length()));
+
+        assertThat(link, equalTo(directory.resolve("links").resolve("org.example-a-1.0.0.jar")));
+        assertThat(Files.readString(link), equalTo("content"));
+        assertThat(Files.isSameFile(link, jar), is(true));
+    }
+
+    @Test
+    void toLocation_relinks_replaced_artifact()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a-1.0.0.jar"), "content");
+        final var artifact = new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile());
+        final var links = directory.resolve("links");
+        final var locations = new BundleLocations(BundleLocations.Mode.LINK, links);
+
+        locations.toLocation(artifact);
+
+        // the local repository replaces a file instead of writing into it
+        Files.move(Files.writeString(directory.resolve("a.tmp"), "new content"), jar,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        final var location = locations.toLocation(artifact);
+        final var link = Paths.get(location.substring("reference:file:".length()));
+
+        assertThat(Files.readString(link), equalTo("new content"));
+
+        try (final var files = Files.list(links)) {
+
+            assertThat(files.map(x -> x.getFileName().toString()).collect(Collectors.toList()),
+                    contains("org.example-a-1.0.0.jar"));
+        }
+    }
+}
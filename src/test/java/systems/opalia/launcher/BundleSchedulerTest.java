@@ -0,0 +1,185 @@
+package systems.opalia.launcher;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.FrameworkWiring;
+import systems.opalia.launcher.exception.UncheckedBundleException;
+import systems.opalia.launcher.metrics.BundleMetrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static systems.opalia.launcher.TestBundles.createBundle;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class BundleSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void start_parallel_skips_consumers_of_failed_bundle()
+            throws Exception {
+
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+
+            // the activator class does not exist, so the start of a fails
+            final var a = install(context, "a", Map.of(
+                    Constants.EXPORT_PACKAGE, "org.example.a",
+                    Constants.BUNDLE_ACTIVATOR, "org.example.a.Missing"));
+            final var b = install(context, "b", Map.of(Constants.IMPORT_PACKAGE, "org.example.a"));
+            final var c = install(context, "c", Map.of());
+
+            framework.adapt(FrameworkWiring.class).resolveBundles(null);
+
+            final var scheduler = new BundleScheduler(2, new BootProfiler(), new BundleMetrics(context));
+            final var graph = BundleGraph.of(List.of(a, b, c));
+            final var exception = assertThrows(UncheckedBundleException.class, () -> scheduler.startParallel(graph));
+
+            assertThat(exception.getMessage(), containsString("org.example.a"));
+            assertThat(exception.getSuppressed().length, equalTo(0));
+            assertThat(a.getState(), not(equalTo(Bundle.ACTIVE)));
+            assertThat(b.getState(), equalTo(Bundle.RESOLVED));
+            assertThat(c.getState(), equalTo(Bundle.ACTIVE));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void start_parallel_rethrows_unchecked_exceptions_of_bundles()
+            throws Exception {
+
+        final var failure = new IllegalStateException("uninstalled");
+        final var bundle = createLifecycleBundle("a", () -> {
+
+            throw failure;
+        });
+
+        final var scheduler = new BundleScheduler(2, new BootProfiler(), new BundleMetrics(null));
+        final var graph = BundleGraph.of(List.of(bundle));
+
+        final var exception = assertThrows(IllegalStateException.class, () -> scheduler.startParallel(graph));
+
+        assertThat(exception, sameInstance(failure));
+    }
+
+    @Test
+    void stop_leaves_remaining_layers_after_deadline()
+            throws Exception {
+
+        final var release = new CountDownLatch(1);
+        final var stopped = new CountDownLatch(1);
+        final var hanging = createLifecycleBundle("hanging", () -> {
+
+            try {
+
+                release.await(10, TimeUnit.SECONDS);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        final var later = createLifecycleBundle("later", stopped::countDown);
+        final var scheduler = new BundleScheduler(1, new BootProfiler(), new BundleMetrics(null));
+
+        try {
+
+            final var overdue = scheduler.stop(List.of(List.of(hanging), List.of(later)), 10000,
+                    System.nanoTime() + 200_000_000);
+
+            assertThat(overdue, contains(hanging));
+            assertThat(stopped.getCount(), equalTo(1L));
+
+        } finally {
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    void stop_bounds_each_bundle_by_its_timeout()
+            throws Exception {
+
+        final var release = new CountDownLatch(1);
+        final var stopped = new CountDownLatch(1);
+        final var hanging = createLifecycleBundle("hanging", () -> {
+
+            try {
+
+                release.await(10, TimeUnit.SECONDS);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        final var later = createLifecycleBundle("later", stopped::countDown);
+        final var scheduler = new BundleScheduler(1, new BootProfiler(), new BundleMetrics(null));
+
+        try {
+
+            final var overdue = scheduler.stop(List.of(List.of(hanging), List.of(later)), 100,
+                    System.nanoTime() + 10_000_000_000L);
+
+            assertThat(overdue, contains(hanging));
+            assertThat(stopped.getCount(), equalTo(0L));
+
+        } finally {
+
+            release.countDown();
+        }
+    }
+
+    private Bundle install(BundleContext context, String name, Map<String, String> headers)
+            throws Exception {
+
+        final var file = createBundle(directory.resolve("repository").resolve(name + ".jar"), name, "1.0.0", headers);
+
+        return context.installBundle(file.toUri().toString());
+    }
+
+    private static Bundle createLifecycleBundle(String name, Runnable lifecycle) {
+
+        // a bundle without wiring whose start and stop run the given action
+        return (Bundle) Proxy.newProxyInstance(Bundle.class.getClassLoader(), new Class<?>[]{Bundle.class},
+                (proxy, method, arguments) -> {
+
+                    switch (method.getName()) {
+
+                        case "start":
+                        case "stop":
+                            lifecycle.run();
+                            return null;
+                        case "toString":
+                            return name;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == arguments[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,209 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import systems.opalia.launcher.metrics.BundleMetrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static systems.opalia.launcher.TestBundles.createBundle;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class BundleUpdaterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void update_applies_batch_and_reports_each_artifact()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+
+        deployArtifact(repository, "a", "1.0.0", Map.of(Constants.EXPORT_PACKAGE, "org.example.a;version=1.0.0"));
+        deployArtifact(repository, "a", "1.1.0", Map.of(Constants.EXPORT_PACKAGE, "org.example.a;version=1.1.0"));
+        deployArtifact(repository, "b", "1.0.0", Map.of(Constants.IMPORT_PACKAGE, "org.example.a"));
+        deployArtifact(repository, "c", "1.0.0", Map.of());
+
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var resolver = new ArtifactResolver.Builder(new LinkedHashMap<>(), repository.toString())
+                    .setThreads(2)
+                    .build();
+            final var scheduler = new BundleScheduler(1, new BootProfiler(), new BundleMetrics(context));
+            final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+            final var a = context.installBundle(locations.toLocation(
+                    resolver.resolve(new DefaultArtifact("org.example:a:1.0.0"))));
+            final var b = context.installBundle(locations.toLocation(
+                    resolver.resolve(new DefaultArtifact("org.example:b:1.0.0"))));
+
+            a.start();
+            b.start();
+
+            final var report = new BundleUpdater(context, resolver, scheduler, locations,
+                    new ManagedBundles(directory.resolve("managed-bundles.properties")), 2).update(
+                    List.of("org.example:a:1.1.0", "org.example:b:1.0.0", "org.example:c:1.0.0",
+                            "org.example:missing:1.0.0"),
+                    10000,
+                    System.nanoTime() + 25_000_000_000L);
+
+            final var outcomes = report.getOutcomes();
+
+            assertThat(outcomes.get(0).getStatus(), equalTo(BundleUpdateReport.Status.UPDATED));
+            assertThat(outcomes.get(0).getBundleId(), equalTo(a.getBundleId()));
+            assertThat(outcomes.get(1).getStatus(), equalTo(BundleUpdateReport.Status.UNCHANGED));
+            assertThat(outcomes.get(2).getStatus(), equalTo(BundleUpdateReport.Status.INSTALLED));
+            assertThat(outcomes.get(3).getStatus(), equalTo(BundleUpdateReport.Status.FAILED));
+            assertThat(outcomes.get(3).getError().isPresent(), is(true));
+            assertThat(report.isSuccessful(), is(false));
+
+            assertThat(a.getVersion().toString(), equalTo("1.1.0"));
+            assertThat(a.getState(), equalTo(Bundle.ACTIVE));
+            assertThat(b.getState(), equalTo(Bundle.ACTIVE));
+            assertThat(context.getBundle(outcomes.get(2).getBundleId()).getState(), equalTo(Bundle.ACTIVE));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void update_detects_rebuilt_snapshots_and_rejects_duplicate_bundles()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+
+        deployArtifact(repository, "a", "1.0.0", Map.of());
+        deployArtifact(repository, "a", "1.1.0", Map.of());
+        deployArtifact(repository, "a", "1.2.0", Map.of());
+        deployArtifact(repository, "s", "1.0.0-SNAPSHOT", Map.of(Constants.BUNDLE_VERSION, "1.0.0.SNAPSHOT"));
+
+        final var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var resolver = new ArtifactResolver.Builder(new LinkedHashMap<>(), repository.toString())
+                    .setThreads(2)
+                    .build();
+            final var scheduler = new BundleScheduler(1, new BootProfiler(), new BundleMetrics(context));
+            final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+            final var updater = new BundleUpdater(context, resolver, scheduler, locations,
+                    new ManagedBundles(directory.resolve("managed-bundles.properties")), 2);
+            final var a = context.installBundle(locations.toLocation(
+                    resolver.resolve(new DefaultArtifact("org.example:a:1.0.0"))));
+            final var s = context.installBundle(locations.toLocation(
+                    resolver.resolve(new DefaultArtifact("org.example:s:1.0.0-SNAPSHOT"))));
+
+            // the rebuilt snapshot keeps its version and gets an older modification time than the bundle
+            final var snapshot = deployArtifact(repository, "s", "1.0.0-SNAPSHOT", Map.of(
+                    Constants.BUNDLE_VERSION, "1.0.0.SNAPSHOT",
+                    Constants.EXPORT_PACKAGE, "org.example.s"));
+
+            Files.setLastModifiedTime(snapshot, FileTime.fromMillis(s.getLastModified() - 60000));
+
+            final var first = updater.update(List.of("org.example:a:1.0.0", "org.example:s:1.0.0-SNAPSHOT"), 10000,
+                    System.nanoTime() + 25_000_000_000L);
+
+            assertThat(first.getOutcomes().get(0).getStatus(), equalTo(BundleUpdateReport.Status.UNCHANGED));
+            assertThat(first.getOutcomes().get(1).getStatus(), equalTo(BundleUpdateReport.Status.UPDATED));
+            assertThat(s.getHeaders().get(Constants.EXPORT_PACKAGE), equalTo("org.example.s"));
+
+            final var second = updater.update(List.of("org.example:a:1.1.0", "org.example:a:1.2.0"), 10000,
+                    System.nanoTime() + 25_000_000_000L);
+
+            assertThat(second.getOutcomes().get(0).getStatus(), equalTo(BundleUpdateReport.Status.UPDATED));
+            assertThat(second.getOutcomes().get(1).getStatus(), equalTo(BundleUpdateReport.Status.FAILED));
+            assertThat(second.getOutcomes().get(1).getError().orElseThrow().getMessage(),
+                    containsString("org.example:a:1.1.0"));
+            assertThat(a.getVersion().toString(), equalTo("1.1.0"));
+            assertThat(context.getBundles().length, equalTo(3));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void warm_restart_after_update_returns_to_configured_bundles()
+            throws Exception {
+
+        final var repository = directory.resolve("repository");
+
+        deployArtifact(repository, "a", "1.0.0", Map.of());
+        deployArtifact(repository, "a", "1.1.0", Map.of());
+        deployArtifact(repository, "c", "1.0.0", Map.of());
+
+        final var resolver = new ArtifactResolver.Builder(new LinkedHashMap<>(), repository.toString())
+                .setThreads(2)
+                .build();
+        final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+        final var managedBundles = new ManagedBundles(directory.resolve("managed-bundles.properties"));
+        final var configured = List.of(resolver.resolve(new DefaultArtifact("org.example:a:1.0.0")));
+        final Bundle a;
+        final long c;
+        var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var scheduler = new BundleScheduler(1, new BootProfiler(), new BundleMetrics(context));
+
+            a = managedBundles.synchronize(context, configured, locations, new BootProfiler()).get(0);
+
+            final var report = new BundleUpdater(context, resolver, scheduler, locations, managedBundles, 2).update(
+                    List.of("org.example:a:1.1.0", "org.example:c:1.0.0"), 10000, System.nanoTime() + 25_000_000_000L);
+
+            assertThat(report.isSuccessful(), is(true));
+            assertThat(a.getVersion().toString(), equalTo("1.1.0"));
+
+            c = report.getOutcomes(BundleUpdateReport.Status.INSTALLED).get(0).getBundleId();
+
+        } finally {
+
+            stopFramework(framework);
+        }
+
+        framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var bundles = managedBundles.synchronize(context, configured, locations, new BootProfiler());
+
+            // the cache kept the updated revision, the recorded state reveals that it differs from the configuration
+            assertThat(bundles.get(0).getBundleId(), equalTo(a.getBundleId()));
+            assertThat(bundles.get(0).getVersion().toString(), equalTo("1.0.0"));
+            assertThat(context.getBundle(c), nullValue());
+            assertThat(context.getBundles().length, equalTo(2));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    private static Path deployArtifact(Path repository, String name, String version, Map<String, String> headers)
+            throws IOException {
+
+        return createBundle(repository.resolve("org/example").resolve(name).resolve(version)
+                .resolve(name + "-" + version + ".jar"), name, version, headers);
+    }
+}
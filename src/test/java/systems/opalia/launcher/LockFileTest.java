@@ -0,0 +1,122 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class LockFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_returns_written_artifacts()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+
+        lockFile.write(coordinates, BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+
+        final var artifacts = lockFile.read(coordinates, BundleArtifacts.Resolution.DIRECT).orElseThrow();
+
+        assertThat(artifacts, hasSize(1));
+        assertThat(artifacts.get(0).toString(), equalTo("org.example:a:jar:1.0.0"));
+        assertThat(artifacts.get(0).getFile(), equalTo(jar.toFile()));
+    }
+
+    @Test
+    void read_rejects_other_coordinates()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+
+        lockFile.write(List.of("org.example:a:1.0.0"), BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+
+        assertThat(lockFile.read(List.of("org.example:a:1.0.1"), BundleArtifacts.Resolution.DIRECT).isPresent(),
+                equalTo(false));
+    }
+
+    @Test
+    void read_rejects_other_resolution()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+
+        lockFile.write(coordinates, BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+
+        assertThat(lockFile.read(coordinates, BundleArtifacts.Resolution.TRANSITIVE).isPresent(), equalTo(false));
+        assertThat(lockFile.read(coordinates, BundleArtifacts.Resolution.DIRECT).isPresent(), equalTo(true));
+    }
+
+    @Test
+    void read_rejects_modified_artifact()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+
+        lockFile.write(coordinates, BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+        Files.writeString(jar, "CONTENT");
+
+        assertThat(lockFile.read(coordinates, BundleArtifacts.Resolution.DIRECT).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void read_accepts_touched_artifact_with_same_content()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+
+        lockFile.write(coordinates, BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 60_000));
+
+        assertThat(lockFile.read(coordinates, BundleArtifacts.Resolution.DIRECT).isPresent(), equalTo(true));
+    }
+
+    @Test
+    void read_rejects_touched_artifact_with_other_content()
+            throws Exception {
+
+        final var jar = Files.writeString(directory.resolve("a.jar"), "content");
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+        final var coordinates = List.of("org.example:a:1.0.0");
+        final var lastModified = Files.getLastModifiedTime(jar);
+
+        lockFile.write(coordinates, BundleArtifacts.Resolution.DIRECT,
+                List.of(new DefaultArtifact("org.example:a:1.0.0").setFile(jar.toFile())));
+        Files.writeString(jar, "CONTENT");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified.toMillis() + 60_000));
+
+        assertThat(lockFile.read(coordinates, BundleArtifacts.Resolution.DIRECT).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void read_rejects_missing_lock_file()
+            throws Exception {
+
+        final var lockFile = new LockFile(directory.resolve("bundles.lock"));
+
+        assertThat(lockFile.read(List.of(), BundleArtifacts.Resolution.DIRECT).isPresent(), equalTo(false));
+    }
+}
@@ -0,0 +1,175 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static systems.opalia.launcher.TestBundles.createBundle;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class ManagedBundlesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void synchronize_installs_only_differences_into_warm_cache()
+            throws Exception {
+
+        final var managedBundles = new ManagedBundles(directory.resolve("state").resolve("managed-bundles.properties"));
+        final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+        final var a = createArtifact("a", "1.0.0");
+        final var b = createArtifact("b", "1.0.0");
+        final var c = createArtifact("c", "1.0.0");
+
+        final List<Bundle> first;
+        var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            first = managedBundles.synchronize(framework.getBundleContext(), List.of(a, b, c), locations,
+                    new BootProfiler());
+
+        } finally {
+
+            stopFramework(framework);
+        }
+
+        // b is rebuilt in place, c is dropped and d is added
+        final var rebuilt = createArtifact("b", "1.0.1");
+        final var d = createArtifact("d", "1.0.0");
+
+        Files.move(rebuilt.getFile().toPath(), b.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(b.getFile().toPath(), FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var second = managedBundles.synchronize(context, List.of(a, b, d), locations, new BootProfiler());
+
+            assertThat(second.get(0).getBundleId(), equalTo(first.get(0).getBundleId()));
+            assertThat(second.get(1).getBundleId(), equalTo(first.get(1).getBundleId()));
+            assertThat(second.get(1).getVersion().toString(), equalTo("1.0.1"));
+            assertThat(second.get(2).getSymbolicName(), equalTo("org.example.d"));
+            assertThat(context.getBundle(first.get(2).getBundleId()), nullValue());
+            assertThat(context.getBundles().length, equalTo(4));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void synchronize_ignores_state_of_cleaned_cache()
+            throws Exception {
+
+        final var managedBundles = new ManagedBundles(directory.resolve("state").resolve("managed-bundles.properties"));
+        final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+        final var a = createArtifact("a", "1.0.0");
+        var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            managedBundles.synchronize(framework.getBundleContext(), List.of(a), locations, new BootProfiler());
+
+        } finally {
+
+            stopFramework(framework);
+        }
+
+        deleteRecursively(directory.resolve("cache"));
+        framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var bundles =
+                    managedBundles.synchronize(framework.getBundleContext(), List.of(a), locations, new BootProfiler());
+
+            assertThat(bundles.get(0).getSymbolicName(), equalTo("org.example.a"));
+            assertThat(framework.getBundleContext().getBundles().length, equalTo(2));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    @Test
+    void synchronize_keeps_several_versions_and_updates_version_bumps()
+            throws Exception {
+
+        final var managedBundles = new ManagedBundles(directory.resolve("state").resolve("managed-bundles.properties"));
+        final var locations = new BundleLocations(BundleLocations.Mode.COPY, directory.resolve("links"));
+        final var a1 = createArtifact("a", "1.0.0");
+        final var a2 = createArtifact("a", "2.0.0");
+        final var b1 = createArtifact("b", "1.0.0");
+
+        final List<Bundle> first;
+        var framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            first = managedBundles.synchronize(framework.getBundleContext(), List.of(a1, a2, b1), locations,
+                    new BootProfiler());
+
+        } finally {
+
+            stopFramework(framework);
+        }
+
+        final var b2 = createArtifact("b", "1.1.0");
+
+        framework = startFramework(directory.resolve("cache"));
+
+        try {
+
+            final var context = framework.getBundleContext();
+            final var second = managedBundles.synchronize(context, List.of(a1, a2, b2), locations, new BootProfiler());
+
+            assertThat(second.get(0).getBundleId(), equalTo(first.get(0).getBundleId()));
+            assertThat(second.get(1).getBundleId(), equalTo(first.get(1).getBundleId()));
+            assertThat(second.get(1).getVersion().toString(), equalTo("2.0.0"));
+            assertThat(second.get(2).getBundleId(), equalTo(first.get(2).getBundleId()));
+            assertThat(second.get(2).getVersion().toString(), equalTo("1.1.0"));
+            assertThat(context.getBundles().length, equalTo(4));
+
+        } finally {
+
+            stopFramework(framework);
+        }
+    }
+
+    private Artifact createArtifact(String name, String version)
+            throws IOException {
+
+        final var file = createBundle(directory.resolve("repository").resolve(name + "-" + version + ".jar"),
+                name, version, Map.of());
+
+        return new DefaultArtifact("org.example:" + name + ":" + version).setFile(file.toFile());
+    }
+
+    private static void deleteRecursively(Path path)
+            throws IOException {
+
+        try (final var paths = Files.walk(path)) {
+
+            paths.sorted((x, y) -> y.compareTo(x)).forEach(x -> x.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package systems.opalia.launcher;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class PackageIndexTest {
+
+    @Test
+    void extractSemver_removes_leading_zeros_and_qualifier()
+            throws Exception {
+
+        final var builder = new StringBuilder();
+
+        PackageIndex.extractSemver(builder, "01.002.0-SNAPSHOT");
+
+        assertThat(builder.toString(), equalTo("1.2.0"));
+    }
+
+    @Test
+    void transformExports_with_wildcard_includes_subpackages()
+            throws Exception {
+
+        final var packageNames = List.of("org.osgi.service.log.*");
+        final var exports = PackageIndex.build(this.getClass().getClassLoader(), packageNames)
+                .transformExports(packageNames);
+
+        assertThat(exports, hasItems(
+                "org.osgi.service.log;version=\"1.5.0\"",
+                "org.osgi.service.log.admin;version=\"1.5.0\""));
+    }
+
+    @Test
+    void transformExports_without_wildcard_includes_exact_package_only()
+            throws Exception {
+
+        final var packageNames = List.of("org.osgi.service.log");
+        final var exports = PackageIndex.build(this.getClass().getClassLoader(), packageNames)
+                .transformExports(packageNames);
+
+        assertThat(exports, contains("org.osgi.service.log;version=\"1.5.0\""));
+    }
+
+    @Test
+    void transformExports_handles_multi_release_archives()
+            throws Exception {
+
+        final var packageNames = List.of("org.apache.logging.log4j.*");
+        final var exports = PackageIndex.build(this.getClass().getClassLoader(), packageNames)
+                .transformExports(packageNames);
+
+        assertThat(exports, hasItem("org.apache.logging.log4j.spi;version=\"2.17.1\""));
+        assertThat(exports, everyItem(not(containsString("META-INF"))));
+    }
+}
@@ -0,0 +1,260 @@
+package systems.opalia.launcher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class RepositorySelectorTest {
+
+    private static final long SLOW_DELAY = 1500;
+
+    @TempDir
+    Path directory;
+
+    private final ConcurrentLinkedQueue<String> slowRequests = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> fastRequests = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch slowCompletion = new CountDownLatch(1);
+    private final List<ArtifactResolver> resolvers = new ArrayList<>();
+    private HttpServer slow;
+    private HttpServer fast;
+    private List<RemoteRepository> repositories;
+
+    @BeforeEach
+    void setup()
+            throws Exception {
+
+        for (var i = 0; i < 3; i++) {
+
+            final var base = directory.resolve("remote/org/example/a" + i + "/1.0.0");
+
+            Files.createDirectories(base);
+            Files.writeString(base.resolve("a" + i + "-1.0.0.jar"), "a" + i);
+        }
+
+        slow = start(exchange -> {
+
+            final var path = exchange.getRequestURI().getPath();
+
+            slowRequests.add(path);
+
+            if (path.endsWith(".jar"))
+                TimeUnit.MILLISECONDS.sleep(SLOW_DELAY);
+
+            serve(exchange);
+
+            // the checksum files are the last requests of a download
+            if (path.endsWith(".md5"))
+                slowCompletion.countDown();
+        });
+
+        fast = start(exchange -> {
+
+            fastRequests.add(exchange.getRequestURI().getPath());
+            serve(exchange);
+        });
+
+        // the slow repository comes first in the configuration
+        repositories = List.of(
+                new RemoteRepository.Builder("slow", "default", getUrl(slow)).build(),
+                new RemoteRepository.Builder("fast", "default", getUrl(fast)).build());
+    }
+
+    @AfterEach
+    void tearDown()
+            throws Exception {
+
+        // lets a losing hedged download finish before the directory is removed
+        slowCompletion.await(SLOW_DELAY * 2, TimeUnit.MILLISECONDS);
+        TimeUnit.MILLISECONDS.sleep(200);
+        resolvers.forEach(ArtifactResolver::close);
+        slow.stop(0);
+        fast.stop(0);
+    }
+
+    @Test
+    void ranked_selection_prefers_the_faster_repository()
+            throws Exception {
+
+        final var resolver = newResolver(ArtifactResolver.RepositorySelection.RANKED);
+
+        // the first resolution measures the slow repository, the second one the fast repository
+        resolver.resolve(new DefaultArtifact("org.example:a0:1.0.0"));
+        resolver.resolve(new DefaultArtifact("org.example:a1:1.0.0"));
+
+        final var start = System.nanoTime();
+        final var artifact = resolver.resolve(new DefaultArtifact("org.example:a2:1.0.0"));
+
+        assertThat(Files.readString(artifact.getFile().toPath()), equalTo("a2"));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(SLOW_DELAY));
+        assertThat(jars(slowRequests), contains("a0-1.0.0.jar"));
+        assertThat(jars(fastRequests), contains("a1-1.0.0.jar", "a2-1.0.0.jar"));
+        assertThat(resolver.getMetrics().getHedgedRequests(), equalTo(0L));
+    }
+
+    @Test
+    void hedged_selection_races_a_slow_repository()
+            throws Exception {
+
+        final var resolver = newResolver(ArtifactResolver.RepositorySelection.HEDGED);
+        final var start = System.nanoTime();
+        final var artifacts = resolver.resolve(List.of(new DefaultArtifact("org.example:a0:1.0.0")));
+
+        assertThat(Files.readString(artifacts.get(0).getFile().toPath()), equalTo("a0"));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(SLOW_DELAY));
+        assertThat(jars(slowRequests), contains("a0-1.0.0.jar"));
+        assertThat(jars(fastRequests), contains("a0-1.0.0.jar"));
+        assertThat(resolver.getMetrics().getHedgedRequests(), equalTo(1L));
+        assertThat(resolver.getMetrics().getHedgeWins(), equalTo(1L));
+    }
+
+    @Test
+    void hedged_selection_stages_the_hedge_of_a_batch()
+            throws Exception {
+
+        final var resolver = newResolver(ArtifactResolver.RepositorySelection.HEDGED);
+        final var start = System.nanoTime();
+        final var artifacts = resolver.resolve(List.of(
+                new DefaultArtifact("org.example:a0:1.0.0"),
+                new DefaultArtifact("org.example:a1:1.0.0"),
+                new DefaultArtifact("org.example:a2:1.0.0")));
+        final var repository = directory.resolve("repository");
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(SLOW_DELAY));
+
+        for (var i = 0; i < artifacts.size(); i++) {
+
+            final var file = artifacts.get(i).getFile().toPath();
+
+            // the winning hedge was moved out of its staging repository into the local repository
+            assertThat(Files.readString(file), equalTo("a" + i));
+            assertThat(file, equalTo(repository.resolve("org/example/a" + i + "/1.0.0/a" + i + "-1.0.0.jar")));
+        }
+
+        assertThat(jars(fastRequests), containsInAnyOrder("a0-1.0.0.jar", "a1-1.0.0.jar", "a2-1.0.0.jar"));
+        assertThat(resolver.getMetrics().getHedgedRequests(), equalTo(2L));
+        assertThat(resolver.getMetrics().getHedgeWins(), equalTo(2L));
+
+        try (final var files = Files.list(repository)) {
+
+            assertThat(files.map(x -> x.getFileName().toString()).collect(Collectors.toList()), contains("org"));
+        }
+    }
+
+    @Test
+    void close_stops_the_hedge_threads_after_the_losing_hedge()
+            throws Exception {
+
+        final var resolver = newResolver(ArtifactResolver.RepositorySelection.HEDGED);
+
+        resolver.resolve(List.of(new DefaultArtifact("org.example:a0:1.0.0")));
+        resolver.close();
+
+        assertThat(slowCompletion.await(SLOW_DELAY * 2, TimeUnit.MILLISECONDS), is(true));
+
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (hedgeThreads() > 0 && System.nanoTime() < deadline)
+            TimeUnit.MILLISECONDS.sleep(50);
+
+        assertThat(hedgeThreads(), equalTo(0L));
+    }
+
+    private ArtifactResolver newResolver(ArtifactResolver.RepositorySelection selection) {
+
+        final var resolver =
+                new ArtifactResolver.Builder(repositories, new LocalRepository(directory.resolve("repository").toFile()))
+                        .setThreads(2)
+                        .setRepositorySelection(selection)
+                        .build();
+
+        resolvers.add(resolver);
+
+        return resolver;
+    }
+
+    private static long hedgeThreads() {
+
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(x -> x.getName().startsWith("artifact-hedge-"))
+                .count();
+    }
+
+    private HttpServer start(Handler handler)
+            throws IOException {
+
+        final var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+
+            try (exchange) {
+
+                handler.handle(exchange);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+
+        return server;
+    }
+
+    private void serve(HttpExchange exchange)
+            throws IOException {
+
+        final var file = directory.resolve("remote").resolve(exchange.getRequestURI().getPath().substring(1));
+
+        if (!Files.isRegularFile(file)) {
+
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        final var content = Files.readAllBytes(file);
+
+        exchange.sendResponseHeaders(200, content.length);
+        exchange.getResponseBody().write(content);
+    }
+
+    private static List<String> jars(ConcurrentLinkedQueue<String> requests) {
+
+        return requests.stream()
+                .filter(x -> x.endsWith(".jar"))
+                .map(x -> x.substring(x.lastIndexOf('/') + 1))
+                .collect(Collectors.toList());
+    }
+
+    private static String getUrl(HttpServer server) {
+
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    private interface Handler {
+
+        void handle(HttpExchange exchange)
+                throws IOException, InterruptedException;
+    }
+}
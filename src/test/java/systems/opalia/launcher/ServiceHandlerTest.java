@@ -0,0 +1,192 @@
+package systems.opalia.launcher;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.launch.Framework;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static systems.opalia.launcher.TestBundles.startFramework;
+import static systems.opalia.launcher.TestBundles.stopFramework;
+
+
+class ServiceHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private Framework framework;
+
+    @BeforeEach
+    void setup()
+            throws Exception {
+
+        framework = startFramework(directory.resolve("cache"));
+    }
+
+    @AfterEach
+    void tearDown()
+            throws Exception {
+
+        stopFramework(framework);
+    }
+
+    @Test
+    void tracked_lookup_follows_service_events()
+            throws Exception {
+
+        final var context = framework.getBundleContext();
+        final var serviceHandler = new ServiceHandler(context, true);
+        final var serviceManager = serviceHandler.getServiceManager();
+        final Runnable low = () -> {
+        };
+        final Runnable high = () -> {
+        };
+        final var properties = new Hashtable<String, Object>();
+
+        assertThrows(IllegalArgumentException.class, () -> serviceManager.getService(Runnable.class));
+
+        final var lowRegistration = context.registerService(Runnable.class, low, null);
+
+        assertThat(serviceManager.getService(Runnable.class), sameInstance(low));
+
+        properties.put(Constants.SERVICE_RANKING, 10);
+        properties.put("name", "high");
+
+        final var highRegistration = context.registerService(Runnable.class, high, properties);
+
+        assertThat(serviceManager.getService(Runnable.class), sameInstance(high));
+        assertThat(serviceManager.getServices(Runnable.class, null), contains(high, low));
+        assertThat(serviceManager.getServices(Runnable.class, "(name=high)"), contains(high));
+
+        highRegistration.unregister();
+
+        assertThat(serviceManager.getService(Runnable.class), sameInstance(low));
+        assertThat(serviceManager.getServices(Runnable.class, null), contains(low));
+        assertThat(serviceManager.getServices(Runnable.class, "(name=high)"), empty());
+
+        // repeated lookups share the reference of their tracker
+        for (var i = 0; i < 100; i++)
+            serviceManager.getService(Runnable.class);
+
+        assertThat(lowRegistration.getReference().getUsingBundles().length, equalTo(1));
+
+        serviceHandler.ungetServices();
+
+        assertThat(lowRegistration.getReference().getUsingBundles(), nullValue());
+        assertThat(serviceHandler.getMetrics().getServiceReleases(), equalTo(1L));
+    }
+
+    @Test
+    void concurrent_use_releases_everything_once()
+            throws Exception {
+
+        stress(false);
+    }
+
+    @Test
+    void concurrent_tracked_use_releases_everything_once()
+            throws Exception {
+
+        stress(true);
+    }
+
+    private void stress(boolean tracking)
+            throws Exception {
+
+        final var threads = 8;
+        final var iterations = 200;
+        final var context = framework.getBundleContext();
+        final var serviceHandler = new ServiceHandler(context, tracking);
+        final var serviceManager = serviceHandler.getServiceManager();
+        final var executor = Executors.newFixedThreadPool(threads + 1);
+        final var startSignal = new CountDownLatch(1);
+        final var futures = new ArrayList<Future<?>>();
+
+        serviceManager.registerService(Runnable.class, () -> {
+        });
+
+        try {
+
+            for (var i = 0; i < threads; i++) {
+
+                final var worker = i;
+
+                futures.add(executor.submit(() -> {
+
+                    startSignal.await();
+
+                    for (var j = 0; j < iterations; j++) {
+
+                        final var properties = new Hashtable<String, Object>();
+
+                        properties.put("worker", worker);
+                        serviceManager.registerService(Runnable.class, () -> {
+                        }, properties);
+
+                        assertThat(serviceManager.getService(Runnable.class), notNullValue());
+                        assertThat(serviceManager.getServices(Runnable.class, "(worker=" + worker + ")"),
+                                not(empty()));
+                    }
+
+                    return null;
+                }));
+            }
+
+            // releases race with the lookups of the workers
+            futures.add(executor.submit(() -> {
+
+                startSignal.await();
+
+                for (var j = 0; j < iterations; j++)
+                    serviceHandler.ungetServices();
+
+                return null;
+            }));
+
+            startSignal.countDown();
+
+            for (final var future : futures)
+                future.get();
+
+            final var releases = new ArrayList<Future<?>>();
+
+            for (var i = 0; i < 4; i++) {
+
+                releases.add(executor.submit(serviceHandler::unregisterServices));
+                releases.add(executor.submit(serviceHandler::ungetServices));
+            }
+
+            for (final var future : releases)
+                future.get();
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        final var metrics = serviceHandler.getMetrics();
+        final var servicesInUse = framework.getServicesInUse();
+
+        assertThat(metrics.getServiceRegistrations(), equalTo((long) threads * iterations + 1));
+        assertThat(metrics.getServiceUnregistrations(), equalTo(metrics.getServiceRegistrations()));
+        assertThat(context.getServiceReferences(Runnable.class, null), empty());
+        assertThat(servicesInUse == null ? 0 : Arrays.stream(servicesInUse)
+                .map(ServiceReference::getProperties)
+                .filter(x -> Arrays.asList((String[]) x.get(Constants.OBJECTCLASS))
+                        .contains(Runnable.class.getName()))
+                .count(), equalTo(0L));
+    }
+}
@@ -0,0 +1,239 @@
+package systems.opalia.launcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class SingleFlightCacheTest {
+
+    @Test
+    void concurrent_callers_share_one_load()
+            throws Exception {
+
+        final var threads = 8;
+        final var cache = new SingleFlightCache<String, String>(16, Duration.ofMinutes(1));
+        final var loads = new AtomicInteger();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var futures = new ArrayList<Future<String>>();
+
+        try {
+
+            futures.add(executor.submit(() -> cache.get("a", x -> {
+
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return x.toUpperCase();
+            })));
+
+            started.await();
+
+            for (var i = 1; i < threads; i++)
+                futures.add(executor.submit(() -> cache.get("a", x -> {
+
+                    loads.incrementAndGet();
+                    return x.toUpperCase();
+                })));
+
+            while (cache.getSharedRequests() < threads - 1)
+                TimeUnit.MILLISECONDS.sleep(1);
+
+            release.countDown();
+
+            for (final var future : futures)
+                assertThat(future.get(), equalTo("A"));
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get(), equalTo(1));
+        assertThat(cache.getMisses(), equalTo(1L));
+        assertThat(cache.getSharedRequests(), equalTo((long) threads - 1));
+        assertThat(cache.get("a", x -> "other"), equalTo("A"));
+        assertThat(cache.getHits(), equalTo(1L));
+    }
+
+    @Test
+    void batches_only_load_missing_keys()
+            throws Exception {
+
+        final var cache = new SingleFlightCache<String, String>(16, Duration.ofMinutes(1));
+        final var requested = new ArrayList<List<String>>();
+
+        cache.get("b", String::toUpperCase);
+
+        final var results = cache.getAll(List.of("a", "b", "c", "a"), x -> {
+
+            requested.add(x);
+            return x.stream().map(String::toUpperCase).collect(Collectors.toList());
+        });
+
+        assertThat(requested, contains(List.of("a", "c")));
+        assertThat(results.get("a"), equalTo("A"));
+        assertThat(results.get("b"), equalTo("B"));
+        assertThat(results.get("c"), equalTo("C"));
+    }
+
+    @Test
+    void entries_expire_and_are_bounded()
+            throws Exception {
+
+        final var loads = new AtomicInteger();
+        final var expiring = new SingleFlightCache<String, Integer>(16, Duration.ofMillis(50));
+
+        expiring.get("a", x -> loads.incrementAndGet());
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertThat(expiring.get("a", x -> loads.incrementAndGet()), equalTo(2));
+
+        final var bounded = new SingleFlightCache<String, Integer>(2, Duration.ofMinutes(1));
+
+        bounded.get("a", x -> loads.incrementAndGet());
+        bounded.get("b", x -> loads.incrementAndGet());
+        bounded.get("a", x -> loads.incrementAndGet());
+        bounded.get("c", x -> loads.incrementAndGet());
+
+        // the least recently used key was evicted
+        assertThat(bounded.get("a", x -> -1), equalTo(3));
+        assertThat(bounded.get("b", x -> -1), equalTo(-1));
+
+        final var filtered = new SingleFlightCache<String, Integer>(16, Duration.ofMinutes(1), (x, y) -> y > 0);
+
+        filtered.get("a", x -> -1);
+
+        assertThat(filtered.get("a", x -> 1), equalTo(1));
+    }
+
+    @Test
+    void failures_are_not_cached()
+            throws Exception {
+
+        final var cache = new SingleFlightCache<String, String>(16, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get("a", x -> {
+
+            throw new IllegalStateException("unavailable");
+        }));
+
+        assertThat(cache.get("a", String::toUpperCase), equalTo("A"));
+        assertThat(cache.getMisses(), equalTo(2L));
+    }
+
+    @Test
+    void errors_complete_the_waiting_callers()
+            throws Exception {
+
+        final var cache = new SingleFlightCache<String, String>(16, Duration.ofMinutes(1));
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(2);
+
+        try {
+
+            final var leader = executor.submit(() -> cache.get("a", x -> {
+
+                started.countDown();
+                await(release);
+                throw new AssertionError("broken");
+            }));
+
+            started.await();
+
+            final var waiter = executor.submit(() -> cache.get("a", String::toUpperCase));
+
+            while (cache.getSharedRequests() < 1)
+                TimeUnit.MILLISECONDS.sleep(1);
+
+            release.countDown();
+
+            final var leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+            final var waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+
+            assertThat(leaderFailure.getCause(), instanceOf(AssertionError.class));
+            assertThat(waiterFailure.getCause(), sameInstance(leaderFailure.getCause()));
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        assertThat(cache.get("a", String::toUpperCase), equalTo("A"));
+    }
+
+    @Test
+    void partial_failures_only_fail_their_own_keys()
+            throws Exception {
+
+        final var cache = new SingleFlightCache<String, String>(16, Duration.ofMinutes(1));
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var failure = new IllegalStateException("b is missing");
+        final var executor = Executors.newFixedThreadPool(3);
+
+        try {
+
+            final var leader = executor.submit(() -> cache.getAll(List.of("a", "b"), x -> {
+
+                started.countDown();
+                await(release);
+                throw new SingleFlightCache.PartialLoadException(new IllegalStateException("batch failed"),
+                        Arrays.asList("A", null), Arrays.asList(null, failure));
+            }));
+
+            started.await();
+
+            final var first = executor.submit(() -> cache.get("a", x -> "other"));
+            final var second = executor.submit(() -> cache.get("b", x -> "other"));
+
+            while (cache.getSharedRequests() < 2)
+                TimeUnit.MILLISECONDS.sleep(1);
+
+            release.countDown();
+
+            final var leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+            final var secondFailure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+
+            assertThat(leaderFailure.getCause().getMessage(), equalTo("batch failed"));
+            assertThat(first.get(10, TimeUnit.SECONDS), equalTo("A"));
+            assertThat(secondFailure.getCause(), sameInstance(failure));
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        // the loaded key is cached, the failed key is loaded again
+        assertThat(cache.get("a", x -> "other"), equalTo("A"));
+        assertThat(cache.get("b", String::toUpperCase), equalTo("B"));
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+
+            latch.await();
+
+        } catch (InterruptedException e) {
+
+            throw new IllegalStateException(e);
+        }
+    }
+}
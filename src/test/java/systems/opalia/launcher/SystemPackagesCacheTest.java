@@ -0,0 +1,61 @@
+package systems.opalia.launcher;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class SystemPackagesCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void get_returns_value_of_matching_key()
+            throws Exception {
+
+        final var cache = new SystemPackagesCache(directory.resolve("state").resolve("system-packages.properties"));
+
+        cache.put("key", "org.example.a,org.example.b");
+
+        assertThat(cache.get("key").orElseThrow(), equalTo("org.example.a,org.example.b"));
+        assertThat(cache.get("other").isPresent(), equalTo(false));
+    }
+
+    @Test
+    void key_changes_with_classes_directory()
+            throws Exception {
+
+        final var classes = Files.createDirectories(directory.resolve("classes").resolve("org").resolve("example"));
+        final var file = Files.writeString(classes.resolve("A.class"), "a");
+
+        try (final var classLoader = new URLClassLoader(new URL[]{directory.resolve("classes").toUri().toURL()},
+                null)) {
+
+            final var key = SystemPackagesCache.computeKey(List.of(), classLoader);
+
+            assertThat(SystemPackagesCache.computeKey(List.of(), classLoader), equalTo(key));
+            assertThat(SystemPackagesCache.computeKey(List.of("org.example.extra"), classLoader), not(equalTo(key)));
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60000));
+
+            final var touched = SystemPackagesCache.computeKey(List.of(), classLoader);
+
+            assertThat(touched, not(equalTo(key)));
+
+            Files.writeString(classes.resolve("B.class"), "b");
+            Files.setLastModifiedTime(classes.resolve("B.class"), FileTime.fromMillis(0));
+            Files.setLastModifiedTime(classes, FileTime.fromMillis(0));
+
+            assertThat(SystemPackagesCache.computeKey(List.of(), classLoader), not(equalTo(touched)));
+        }
+    }
+}
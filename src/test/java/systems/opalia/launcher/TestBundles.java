@@ -0,0 +1,60 @@
+package systems.opalia.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.apache.felix.framework.FrameworkFactory;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+
+final class TestBundles {
+
+    private TestBundles() {
+    }
+
+    static Framework startFramework(Path storage)
+            throws BundleException {
+
+        final var framework = new FrameworkFactory().newFramework(Map.of(
+                Constants.FRAMEWORK_STORAGE, storage.toString()));
+
+        framework.start();
+
+        return framework;
+    }
+
+    static void stopFramework(Framework framework)
+            throws Exception {
+
+        framework.stop();
+        framework.waitForStop(10000);
+    }
+
+    static Path createBundle(Path file, String name, String version, Map<String, String> headers)
+            throws IOException {
+
+        // an empty bundle named org.example.<name>; the given headers may override the defaults
+        final var manifest = new Manifest();
+
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, "org.example." + name);
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_VERSION, version);
+        headers.forEach(manifest.getMainAttributes()::putValue);
+
+        Files.createDirectories(file.getParent());
+
+        try (final var out = new JarOutputStream(Files.newOutputStream(file), manifest)) {
+
+            out.flush();
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,296 @@
+package systems.opalia.launcher.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Properties;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.OutputStreamAppender;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessageFactory;
+import org.apache.logging.log4j.simple.SimpleLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
+import org.junit.jupiter.api.Test;
+import systems.opalia.launcher.logging.formatter.DefaultFormatter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class AsyncLogDispatcherTest {
+
+    @Test
+    void close_forwards_all_events_of_concurrent_producers()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var dispatcher = new AsyncLogDispatcher(
+                64, 16, AsyncLogDispatcher.WaitStrategy.BLOCKING, AsyncLogDispatcher.DropPolicy.BLOCK);
+        final var logger = new LoggerImpl(newUnderlying(output), new DefaultFormatter(), dispatcher);
+        final var threads = new ArrayList<Thread>();
+
+        for (var i = 0; i < 8; i++) {
+
+            final var producer = i;
+
+            threads.add(new Thread(() -> {
+
+                for (var j = 0; j < 1000; j++)
+                    logger.info("producer {} event {}", producer, j);
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        for (final var thread : threads)
+            thread.join();
+
+        dispatcher.close();
+
+        final var lines = output.toString(StandardCharsets.UTF_8).lines().count();
+
+        assertThat(lines, equalTo(8000L));
+        assertThat(dispatcher.getProcessedEvents(), equalTo(8000L));
+        assertThat(dispatcher.getDroppedEvents(), equalTo(0L));
+        assertThat(output.toString(StandardCharsets.UTF_8), containsString("producer 7 event 999"));
+    }
+
+    @Test
+    void publish_with_discard_policy_counts_dropped_events()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var dispatcher = new AsyncLogDispatcher(
+                2, 1, AsyncLogDispatcher.WaitStrategy.SLEEPING, AsyncLogDispatcher.DropPolicy.DISCARD);
+        final var underlying = newUnderlying(output);
+        final var blocker = new Object() {
+
+            @Override
+            public String toString() {
+
+                try {
+
+                    Thread.sleep(200);
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+
+                return "slow";
+            }
+        };
+        final var logger = new LoggerImpl(underlying, new DefaultFormatter(), dispatcher);
+
+        logger.info("{}", blocker);
+        Thread.sleep(50);
+
+        for (var i = 0; i < 10; i++)
+            logger.info("event {}", i);
+
+        dispatcher.close();
+
+        assertThat(dispatcher.getDroppedEvents(), greaterThan(0L));
+        assertThat(dispatcher.getProcessedEvents() + dispatcher.getDroppedEvents(), equalTo(11L));
+    }
+
+    @Test
+    void failed_forward_counts_as_dropped_only()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var dispatcher = new AsyncLogDispatcher(
+                16, 4, AsyncLogDispatcher.WaitStrategy.BLOCKING, AsyncLogDispatcher.DropPolicy.BLOCK);
+        final var underlying = new SimpleLogger("test", Level.ALL, false, false, false, false, null,
+                ParameterizedMessageFactory.INSTANCE, new PropertiesUtil(new Properties()),
+                new PrintStream(output, true, StandardCharsets.UTF_8)) {
+
+            @Override
+            public boolean isEnabled(Level level, Marker marker, Message message, Throwable throwable) {
+
+                // log4j catches failures of the appenders, but not of the filters
+                if (message.getFormattedMessage().contains("failing"))
+                    throw new IllegalStateException();
+
+                return super.isEnabled(level, marker, message, throwable);
+            }
+        };
+        final var logger = new LoggerImpl(underlying, new DefaultFormatter(), dispatcher);
+
+        logger.info("{} event", "failing");
+        logger.info("{} event", "working");
+
+        dispatcher.close();
+
+        assertThat(dispatcher.getDroppedEvents(), equalTo(1L));
+        assertThat(dispatcher.getProcessedEvents(), equalTo(1L));
+    }
+
+    @Test
+    void close_forwards_events_published_concurrently()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var dispatcher = new AsyncLogDispatcher(
+                1024, 16, AsyncLogDispatcher.WaitStrategy.BLOCKING, AsyncLogDispatcher.DropPolicy.DISCARD);
+        final var logger = new LoggerImpl(newUnderlying(output), new DefaultFormatter(), dispatcher);
+        final var threads = new ArrayList<Thread>();
+
+        for (var i = 0; i < 8; i++)
+            threads.add(new Thread(() -> {
+
+                for (var j = 0; j < 2000; j++)
+                    logger.info("event {}", j);
+            }));
+
+        threads.forEach(Thread::start);
+        Thread.sleep(5);
+        dispatcher.close();
+
+        for (final var thread : threads)
+            thread.join();
+
+        // events are either forwarded by the dispatcher, logged synchronously after close or dropped on overflow
+        final var lines = output.toString(StandardCharsets.UTF_8).lines().count();
+
+        assertThat(lines + dispatcher.getDroppedEvents(), equalTo(16000L));
+    }
+
+    @Test
+    void forwarded_event_keeps_thread_and_time_of_caller()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var context = newContext(output, "%t|%d{UNIX_MILLIS}|%m%n");
+        final var dispatcher = new AsyncLogDispatcher(
+                16, 4, AsyncLogDispatcher.WaitStrategy.BLOCKING, AsyncLogDispatcher.DropPolicy.BLOCK);
+        final var logger = new LoggerImpl(context.getLogger("test"), new DefaultFormatter(), dispatcher);
+        final var blocker = new Object() {
+
+            @Override
+            public String toString() {
+
+                try {
+
+                    Thread.sleep(300);
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+
+                return "slow";
+            }
+        };
+
+        final var before = new long[1];
+        final var after = new long[1];
+        final var producer = new Thread(() -> {
+
+            logger.info("{}", blocker);
+            before[0] = System.currentTimeMillis();
+            logger.info("second {}", "event");
+            after[0] = System.currentTimeMillis();
+        }, "producer");
+
+        try {
+
+            producer.start();
+            producer.join();
+            dispatcher.close();
+
+        } finally {
+
+            context.stop();
+        }
+
+        final var columns = output.toString(StandardCharsets.UTF_8).lines()
+                .filter(x -> x.endsWith("second event"))
+                .findFirst()
+                .orElseThrow()
+                .split("\\|");
+
+        assertThat(columns[0], equalTo("producer"));
+        assertThat(Long.parseLong(columns[1]), allOf(greaterThanOrEqualTo(before[0]), lessThanOrEqualTo(after[0])));
+    }
+
+    @Test
+    void forwarded_event_keeps_context_and_location_of_caller()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var context = newContext(output, "%X{request}|%x|%C.%M|%m%n");
+        final var dispatcher = new AsyncLogDispatcher(
+                16, 4, AsyncLogDispatcher.WaitStrategy.BLOCKING, AsyncLogDispatcher.DropPolicy.BLOCK);
+        final var logger = new LoggerImpl(context.getLogger("test"), new DefaultFormatter(), dispatcher);
+
+        try {
+
+            ThreadContext.put("request", "42");
+            ThreadContext.push("outer");
+            logger.info("event {}", "in context");
+
+        } finally {
+
+            ThreadContext.clearAll();
+            dispatcher.close();
+            context.stop();
+        }
+
+        final var line = output.toString(StandardCharsets.UTF_8).lines()
+                .filter(x -> x.endsWith("event in context"))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(line, equalTo("42|[outer]|" + getClass().getName() +
+                ".forwarded_event_keeps_context_and_location_of_caller|event in context"));
+    }
+
+    @Test
+    void publish_after_close_logs_synchronously()
+            throws Exception {
+
+        final var output = new ByteArrayOutputStream();
+        final var dispatcher = new AsyncLogDispatcher(
+                16, 4, AsyncLogDispatcher.WaitStrategy.YIELDING, AsyncLogDispatcher.DropPolicy.BLOCK);
+        final var logger = new LoggerImpl(newUnderlying(output), new DefaultFormatter(), dispatcher);
+
+        dispatcher.close();
+        logger.warn("after {}", "close");
+
+        assertThat(output.toString(StandardCharsets.UTF_8), containsString("after close"));
+    }
+
+    private LoggerContext newContext(ByteArrayOutputStream output, String pattern) {
+
+        final var context = new LoggerContext("test");
+        final var configuration = new DefaultConfiguration();
+        final var appender = OutputStreamAppender.newBuilder()
+                .setName("test")
+                .setTarget(output)
+                .setLayout(PatternLayout.newBuilder().withPattern(pattern).build())
+                .build();
+
+        appender.start();
+        configuration.getRootLogger().getAppenderRefs().clear();
+        configuration.getRootLogger().getAppenders().keySet().forEach(configuration.getRootLogger()::removeAppender);
+        configuration.getRootLogger().addAppender(appender, Level.ALL, null);
+        configuration.getRootLogger().setLevel(Level.ALL);
+        context.start(configuration);
+
+        return context;
+    }
+
+    private org.apache.logging.log4j.Logger newUnderlying(ByteArrayOutputStream output) {
+
+        return new SimpleLogger("test", Level.ALL, false, false, false, false, null,
+                ParameterizedMessageFactory.INSTANCE, new PropertiesUtil(new Properties()),
+                new PrintStream(output, true, StandardCharsets.UTF_8));
+    }
+}
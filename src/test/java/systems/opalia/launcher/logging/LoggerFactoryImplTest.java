@@ -0,0 +1,86 @@
+package systems.opalia.launcher.logging;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.service.log.FormatterLogger;
+import org.osgi.service.log.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class LoggerFactoryImplTest {
+
+    @Test
+    void getLogger_returns_shared_instances()
+            throws Exception {
+
+        final var factory = new LoggerFactoryImpl();
+
+        assertThat(factory.getLogger("test"), sameInstance(factory.getLogger("test")));
+        assertThat(factory.getLogger(LoggerFactoryImplTest.class),
+                sameInstance(factory.getLogger(LoggerFactoryImplTest.class, Logger.class)));
+        assertThat(factory.getLogger("test", FormatterLogger.class),
+                sameInstance(factory.getLogger("test", FormatterLogger.class)));
+    }
+
+    @Test
+    void getLogger_distinguishes_logger_types()
+            throws Exception {
+
+        final var factory = new LoggerFactoryImpl();
+
+        assertThat(factory.getLogger("test", FormatterLogger.class), instanceOf(FormatterLoggerImpl.class));
+        assertThat(factory.getLogger("test", Logger.class), instanceOf(LoggerImpl.class));
+        assertThat(factory.getLogger(LoggerFactoryImplTest.class, FormatterLogger.class),
+                not(sameInstance(factory.getLogger(LoggerFactoryImplTest.class, Logger.class))));
+    }
+
+    @Test
+    void bundleChanged_evicts_loggers_of_outdated_bundles()
+            throws Exception {
+
+        final var factory = new LoggerFactoryImpl();
+        final var bundle = createBundle("org.example.a");
+        final var other = createBundle("org.example.b");
+
+        for (final var type : List.of(BundleEvent.UPDATED, BundleEvent.UNRESOLVED, BundleEvent.UNINSTALLED)) {
+
+            final var logger = factory.getLogger(bundle, "test", Logger.class);
+            final var unaffected = factory.getLogger(other, "test", Logger.class);
+
+            factory.bundleChanged(new BundleEvent(type, bundle));
+
+            assertThat(factory.getLogger(bundle, "test", Logger.class), not(sameInstance(logger)));
+            assertThat(factory.getLogger(other, "test", Logger.class), sameInstance(unaffected));
+        }
+
+        final var logger = factory.getLogger(bundle, "test", Logger.class);
+
+        factory.bundleChanged(new BundleEvent(BundleEvent.STARTED, bundle));
+
+        assertThat(factory.getLogger(bundle, "test", Logger.class), sameInstance(logger));
+    }
+
+    private static Bundle createBundle(String symbolicName) {
+
+        return (Bundle) Proxy.newProxyInstance(Bundle.class.getClassLoader(), new Class<?>[]{Bundle.class},
+                (proxy, method, arguments) -> {
+
+                    switch (method.getName()) {
+
+                        case "getSymbolicName":
+                            return symbolicName;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == arguments[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -1,5 +1,6 @@
 package systems.opalia.launcher.logging.formatter;
 
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -64,4 +65,38 @@ class DefaultFormatterTest {
         assertThat(ft.getThrowable(), notNullValue());
         assertThat(ft.getMessage(), equalTo("[string]"));
     }
+
+    @Test
+    void formatTo_is_equivalent_to_arrayFormat()
+            throws Exception {
+
+        final var formatter = new DefaultFormatter();
+        final var cyclic = new Object[2];
+
+        cyclic[0] = "string";
+        cyclic[1] = cyclic;
+
+        final var cases = List.of(
+                new Object[]{"[{}]", new Object[]{42}},
+                new Object[]{"[{}, {}, {}]", new Object[]{73L, 1.5, 'c'}},
+                new Object[]{"[{}]", new Object[]{null}},
+                new Object[]{"[{}, {}]", new Object[]{"string"}},
+                new Object[]{"[{}]", new Object[]{"string", 42}},
+                new Object[]{"no placeholder", new Object[]{42}},
+                new Object[]{"escaped \\{} and {}", new Object[]{42}},
+                new Object[]{"double escaped \\\\{}", new Object[]{42}},
+                new Object[]{"{} and {}", new Object[]{new int[]{1, 2}, new Object[]{"a", new boolean[]{true}}}},
+                new Object[]{"cyclic {}", new Object[]{cyclic}});
+
+        for (final var x : cases) {
+
+            final var pattern = (String) x[0];
+            final var arguments = (Object[]) x[1];
+            final var buffer = new StringBuilder();
+
+            formatter.formatTo(buffer, pattern, arguments, arguments.length);
+
+            assertThat(buffer.toString(), equalTo(formatter.arrayFormat(pattern, arguments).getMessage()));
+        }
+    }
 }
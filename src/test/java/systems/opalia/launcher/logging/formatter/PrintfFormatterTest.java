@@ -1,9 +1,11 @@
 package systems.opalia.launcher.logging.formatter;
 
+import java.util.MissingFormatArgumentException;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 class PrintfFormatterTest {
@@ -64,4 +66,27 @@ class PrintfFormatterTest {
         assertThat(ft.getThrowable(), notNullValue());
         assertThat(ft.getMessage(), equalTo("[string]"));
     }
+
+    @Test
+    void formatTo_is_equivalent_to_arrayFormat()
+            throws Exception {
+
+        final var formatter = new PrintfFormatter();
+        final var buffer = new StringBuilder("prefix ");
+
+        formatter.formatTo(buffer, "[%s, %d, %.2f]", new Object[]{"string", 42, 1.5, null}, 3);
+
+        assertThat(buffer.toString(), equalTo("prefix " +
+                formatter.arrayFormat("[%s, %d, %.2f]", new Object[]{"string", 42, 1.5}).getMessage()));
+    }
+
+    @Test
+    void formatTo_with_missing_argument()
+            throws Exception {
+
+        final var formatter = new PrintfFormatter();
+
+        assertThrows(MissingFormatArgumentException.class, () ->
+                formatter.formatTo(new StringBuilder(), "[%s, %s]", new Object[]{"string", null}, 1));
+    }
 }
@@ -0,0 +1,69 @@
+package systems.opalia.launcher.metrics;
+
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.Level;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+
+class MetricsRegistryTest {
+
+    @Test
+    void register_and_unregister_metrics()
+            throws Exception {
+
+        final var server = MBeanServerFactory.newMBeanServer();
+        final var registry = new MetricsRegistry(server);
+        final var metrics = new LoggingMetrics();
+        final var name = new ObjectName(MetricsRegistry.DOMAIN, "type", "Logging");
+
+        metrics.recordEvent(Level.INFO);
+        metrics.recordEvent(Level.INFO);
+        metrics.recordEvent(Level.ALL);
+
+        registry.register("Logging", metrics);
+
+        assertThat(server.getAttribute(name, "InfoEvents"), equalTo(2L));
+        assertThat(server.getAttribute(name, "AuditEvents"), equalTo(1L));
+        assertThat(server.getAttribute(name, "TotalEvents"), equalTo(3L));
+
+        registry.unregisterAll();
+
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    void register_keeps_metrics_of_other_registry()
+            throws Exception {
+
+        final var server = MBeanServerFactory.newMBeanServer();
+        final var first = new MetricsRegistry(server);
+        final var second = new MetricsRegistry(server);
+        final var metrics = new LoggingMetrics();
+        final var name = new ObjectName(MetricsRegistry.DOMAIN, "type", "Logging");
+
+        metrics.recordEvent(Level.INFO);
+
+        first.register("Logging", metrics);
+
+        // a second launcher in the same JVM gets its own instance name
+        second.register("Logging", new LoggingMetrics());
+
+        final var names = server.queryNames(new ObjectName(MetricsRegistry.DOMAIN + ":type=Logging,*"), null);
+
+        assertThat(names, hasSize(2));
+        assertThat(server.getAttribute(name, "TotalEvents"), equalTo(1L));
+
+        second.unregisterAll();
+
+        assertThat(server.queryNames(new ObjectName(MetricsRegistry.DOMAIN + ":type=Logging,*"), null),
+                contains(name));
+
+        first.unregisterAll();
+
+        assertThat(server.isRegistered(name), is(false));
+    }
+}
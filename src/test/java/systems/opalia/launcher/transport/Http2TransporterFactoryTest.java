@@ -0,0 +1,313 @@
+package systems.opalia.launcher.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import systems.opalia.launcher.ArtifactResolver;
+import systems.opalia.launcher.exception.UncheckedResolutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class Http2TransporterFactoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Queue<String> ranges = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, String> authorizations = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private HttpServer mirror;
+    private Path remote;
+
+    @BeforeEach
+    void setup()
+            throws Exception {
+
+        remote = directory.resolve("remote");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", this::handle);
+        server.start();
+        mirror = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        mirror.createContext("/", this::handle);
+        mirror.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        server.stop(0);
+        mirror.stop(0);
+    }
+
+    @Test
+    void resolves_many_artifacts_over_a_shared_client()
+            throws Exception {
+
+        final var count = 40;
+        final var size = 256 * 1024;
+        final var contents = new ArrayList<byte[]>();
+        final var artifacts = new ArrayList<DefaultArtifact>();
+
+        for (var i = 0; i < count; i++) {
+
+            contents.add(createArtifact("a" + i, size));
+            artifacts.add(new DefaultArtifact("org.example:a" + i + ":1.0.0"));
+        }
+
+        final var repositories = new LinkedHashMap<String, String>();
+
+        repositories.put("local", "http://localhost:" + server.getAddress().getPort() + "/");
+
+        final var resolver = new ArtifactResolver.Builder(repositories, directory.resolve("repository").toString())
+                .setThreads(8)
+                .setHttpTransporterFactory(new Http2TransporterFactory())
+                .build();
+        final var start = System.nanoTime();
+        final var resolved = resolver.resolve(artifacts);
+        final var seconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(resolved, hasSize(count));
+
+        for (var i = 0; i < count; i++)
+            assertThat(Files.readAllBytes(resolved.get(i).getFile().toPath()), equalTo(contents.get(i)));
+
+        // checksums are taken from the response headers instead of separate requests
+        assertThat(requests.keySet().stream().filter(x -> x.endsWith(".sha1") || x.endsWith(".md5")).count(),
+                equalTo(0L));
+        assertThat((long) count * size / seconds, greaterThan(1024.0 * 1024.0));
+
+        // a missing artifact is requested only once
+        assertThrows(UncheckedResolutionException.class,
+                () -> resolver.resolve(new DefaultArtifact("org.example:missing:1.0.0")));
+        assertThat(requests.get("/org/example/missing/1.0.0/missing-1.0.0.jar").get(), equalTo(1));
+    }
+
+    @Test
+    void resumes_partial_downloads()
+            throws Exception {
+
+        final var content = createArtifact("b", 64 * 1024);
+        final var partial = directory.resolve("b.part");
+        final var repository = new RemoteRepository.Builder("local", "default",
+                "http://localhost:" + server.getAddress().getPort() + "/").build();
+
+        Files.write(partial, Arrays.copyOf(content, 1000));
+
+        final var transporter = new Http2TransporterFactory()
+                .newInstance(MavenRepositorySystemUtils.newSession(), repository);
+
+        try {
+
+            final var task = new GetTask(URI.create("org/example/b/1.0.0/b-1.0.0.jar"))
+                    .setDataFile(partial.toFile(), true);
+
+            transporter.get(task);
+
+            assertThat(ranges, contains("bytes=1000-"));
+            assertThat(Files.readAllBytes(partial), equalTo(content));
+            assertThat(task.getChecksums(), hasKey("SHA-1"));
+
+        } finally {
+
+            transporter.close();
+        }
+    }
+
+    @Test
+    void restarts_downloads_beyond_the_remote_file()
+            throws Exception {
+
+        final var content = createArtifact("c", 4 * 1024);
+        final var partial = directory.resolve("c.part");
+        final var repository = new RemoteRepository.Builder("local", "default",
+                "http://localhost:" + server.getAddress().getPort() + "/").build();
+
+        Files.write(partial, Arrays.copyOf(content, content.length + 10));
+
+        final var transporter = new Http2TransporterFactory()
+                .newInstance(MavenRepositorySystemUtils.newSession(), repository);
+
+        try {
+
+            final var task = new GetTask(URI.create("org/example/c/1.0.0/c-1.0.0.jar"))
+                    .setDataFile(partial.toFile(), true);
+
+            transporter.get(task);
+
+            assertThat(ranges, contains("bytes=" + (content.length + 10) + "-"));
+            assertThat(Files.readAllBytes(partial), equalTo(content));
+
+        } finally {
+
+            transporter.close();
+        }
+    }
+
+    @Test
+    void redirects_keep_credentials_within_the_repository_origin()
+            throws Exception {
+
+        final var content = createArtifact("d", 1024);
+        final var repository = new RemoteRepository.Builder("local", "default",
+                "http://localhost:" + server.getAddress().getPort() + "/")
+                .setAuthentication(new AuthenticationBuilder().addUsername("user").addPassword("secret").build())
+                .build();
+        final var factory = new Http2TransporterFactory();
+        final var transporter = factory.newInstance(MavenRepositorySystemUtils.newSession(), repository);
+
+        try {
+
+            final var local = new GetTask(URI.create("local/org/example/d/1.0.0/d-1.0.0.jar"));
+            final var external = new GetTask(URI.create("external/org/example/d/1.0.0/d-1.0.0.jar"));
+
+            transporter.get(local);
+            transporter.get(external);
+
+            assertThat(local.getDataBytes(), equalTo(content));
+            assertThat(external.getDataBytes(), equalTo(content));
+            assertThat(authorizations.get(server.getAddress().getPort() + "/local/org/example/d/1.0.0/d-1.0.0.jar"),
+                    startsWith("Basic "));
+            assertThat(authorizations.get(server.getAddress().getPort() + "/org/example/d/1.0.0/d-1.0.0.jar"),
+                    startsWith("Basic "));
+            assertThat(authorizations.get(mirror.getAddress().getPort() + "/org/example/d/1.0.0/d-1.0.0.jar"),
+                    equalTo("none"));
+
+        } finally {
+
+            transporter.close();
+        }
+
+        // transporters of other sessions share the client and its connections
+        final var other = factory.newInstance(MavenRepositorySystemUtils.newSession(), repository);
+
+        try {
+
+            assertThat(((Http2Transporter) other).getClient(),
+                    sameInstance(((Http2Transporter) transporter).getClient()));
+
+        } finally {
+
+            other.close();
+        }
+    }
+
+    private byte[] createArtifact(String name, int size)
+            throws IOException {
+
+        final var base = remote.resolve("org/example").resolve(name).resolve("1.0.0");
+        final var content = new byte[size];
+
+        new Random(name.hashCode()).nextBytes(content);
+        Files.createDirectories(base);
+        Files.write(base.resolve(name + "-1.0.0.jar"), content);
+
+        return content;
+    }
+
+    private void handle(HttpExchange exchange)
+            throws IOException {
+
+        final var path = exchange.getRequestURI().getPath();
+        final var file = remote.resolve(path.substring(1));
+
+        requests.computeIfAbsent(path, x -> new AtomicInteger()).incrementAndGet();
+        authorizations.put(exchange.getLocalAddress().getPort() + path,
+                Objects.requireNonNullElse(exchange.getRequestHeaders().getFirst("Authorization"), "none"));
+
+        try (exchange) {
+
+            // redirects within the origin of the repository and to another origin
+            if (path.startsWith("/local/") || path.startsWith("/external/")) {
+
+                final var target = path.startsWith("/local/")
+                        ? path.substring("/local".length())
+                        : "http://localhost:" + mirror.getAddress().getPort() + path.substring("/external".length());
+
+                exchange.getResponseHeaders().add("Location", target);
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+
+            if (!Files.isRegularFile(file)) {
+
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            final var content = Files.readAllBytes(file);
+            final var range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null)
+                ranges.add(range);
+
+            final var offset = range == null ? 0 : Integer.parseInt(range.replaceAll("bytes=(\\d+)-", "$1"));
+
+            if (offset > content.length) {
+
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().add("X-Checksum-Sha1", sha1(content));
+
+            if (range != null)
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + offset + "-" + (content.length - 1) + "/" + content.length);
+
+            if (exchange.getRequestMethod().equals("HEAD")) {
+
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(range == null ? 200 : 206, content.length - offset);
+            exchange.getResponseBody().write(content, offset, content.length - offset);
+        }
+    }
+
+    private static String sha1(byte[] content) {
+
+        try {
+
+            final var builder = new StringBuilder();
+
+            for (final var x : MessageDigest.getInstance("SHA-1").digest(content))
+                builder.append(String.format("%02x", x));
+
+            return builder.toString();
+
+        } catch (Exception e) {
+
+            throw new IllegalStateException(e);
+        }
+    }
+}